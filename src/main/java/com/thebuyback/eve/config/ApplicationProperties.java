@@ -11,4 +11,92 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Market market = new Market();
+    private final Esi esi = new Esi();
+    private final Evepraisal evepraisal = new Evepraisal();
+    private final Snapshot snapshot = new Snapshot();
+
+    public Market getMarket() {
+        return market;
+    }
+
+    public Esi getEsi() {
+        return esi;
+    }
+
+    public Evepraisal getEvepraisal() {
+        return evepraisal;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public static class Market {
+
+        private boolean offHeap = false;
+
+        public boolean isOffHeap() {
+            return offHeap;
+        }
+
+        public void setOffHeap(final boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+    }
+
+    /**
+     * The base urls can point to a local stub server, e.g. for load tests.
+     */
+    public static class Esi {
+
+        private String baseUrl = "https://esi.evetech.net";
+        private String loginUrl = "https://login.eveonline.com";
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getLoginUrl() {
+            return loginUrl;
+        }
+
+        public void setLoginUrl(final String loginUrl) {
+            this.loginUrl = loginUrl;
+        }
+    }
+
+    public static class Evepraisal {
+
+        private String baseUrl = "https://evepraisal.com";
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    /**
+     * The file that the type dictionary and the resolved names are written to, and read from at startup. It must
+     * survive restarts, temporary directories are often cleared.
+     */
+    public static class Snapshot {
+
+        private String path = System.getProperty("user.home") + "/.the-buyback/dictionary.snapshot";
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(final String path) {
+            this.path = path;
+        }
+    }
 }
@@ -3,13 +3,12 @@ package com.thebuyback.eve.config;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.MetricRegistry;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.Unirest;
@@ -23,6 +22,7 @@ import com.thebuyback.eve.domain.ItemBuybackRate;
 import com.thebuyback.eve.domain.ItemWithQuantity;
 import com.thebuyback.eve.domain.TypeBuybackRate;
 import com.thebuyback.eve.service.ItemBuybackRateService;
+import com.thebuyback.eve.service.TinyLfuCache;
 import com.thebuyback.eve.service.TypeService;
 
 import org.json.JSONArray;
@@ -38,17 +38,23 @@ public class AppraisalService {
 
     private final TypeService typeService;
     private final ItemBuybackRateService buybackRateService;
-    private final LimitedQueue<Appraisal> cache = new LimitedQueue<>(100);
+    private final String baseUrl;
+    // by appraisal id
+    private final TinyLfuCache<String, Appraisal> cache;
 
     public AppraisalService(final TypeService typeService,
-                            final ItemBuybackRateService buybackRateService) {
+                            final ItemBuybackRateService buybackRateService,
+                            final ApplicationProperties applicationProperties,
+                            final MetricRegistry metricRegistry) {
         this.typeService = typeService;
         this.buybackRateService = buybackRateService;
+        baseUrl = applicationProperties.getEvepraisal().getBaseUrl();
+        cache = new TinyLfuCache<>("appraisals", 100, metricRegistry);
     }
 
     public Appraisal getAppraisalFromNewLineSeparatedRaw(final String newLineSeparatedRaw) throws AppraisalFailed {
         final Appraisal appraisal = getFromRaw(newLineSeparatedRaw);
-        cache.add(appraisal);
+        cache.put(getId(appraisal.getLink()), appraisal);
         return appraisal;
     }
 
@@ -65,20 +71,18 @@ public class AppraisalService {
     }
 
     public Appraisal getAppraisalFromId(final String appraisalId) throws AppraisalFailed {
-        final Optional<Appraisal> first = cache.stream()
-                                               .filter(appraisal -> linkMatchesId(appraisal.getLink(), appraisalId))
-                                               .findFirst();
-        if (first.isPresent()) {
-            return first.get();
+        final Appraisal cached = cache.get(appraisalId);
+        if (null != cached) {
+            return cached;
         } else {
             final Appraisal appraisal = getFromAppraisalId(appraisalId);
-            cache.add(appraisal);
+            cache.put(appraisalId, appraisal);
             return appraisal;
         }
     }
 
-    private boolean linkMatchesId(final String link, final String appraisalId) {
-        return link.endsWith(appraisalId);
+    private static String getId(final String link) {
+        return link.substring(link.lastIndexOf('/') + 1);
     }
 
     private String getRawFromTypeIds(final Map<Integer, Integer> items) {
@@ -99,13 +103,13 @@ public class AppraisalService {
     }
 
     private Appraisal getFromAppraisalId(final String appraisalId) throws AppraisalFailed {
-        final GetRequest request = Unirest.get("https://evepraisal.com/a/" + appraisalId + ".json");
+        final GetRequest request = Unirest.get(baseUrl + "/a/" + appraisalId + ".json");
         return mapToAppraisal(getAppraisal(request), null);
     }
 
     private Appraisal getFromRaw(String raw) throws AppraisalFailed {
         log.debug("Getting appraisal for '{}'", raw.replace("\n", ";"));
-        final RequestBodyEntity request = Unirest.post("https://evepraisal.com/appraisal.json?market=jita").body(raw);
+        final RequestBodyEntity request = Unirest.post(baseUrl + "/appraisal.json?market=jita").body(raw);
         return mapToAppraisal(getAppraisal(request.getHttpRequest()), raw);
     }
 
@@ -143,7 +147,7 @@ public class AppraisalService {
 
         final List<ItemWithQuantity> items = parseItems(appraisalNode.getJSONArray("items"));
         appraisal.setItems(items);
-        appraisal.setLink("https://evepraisal.com/a/" + appraisalNode.getString("id"));
+        appraisal.setLink(baseUrl + "/a/" + appraisalNode.getString("id"));
 
         appraisal.setBuybackPrice(getBuybackPrice(items));
         appraisal.setRaw(raw);
@@ -214,23 +218,4 @@ public class AppraisalService {
         return 0;
     }
 
-    private static class LimitedQueue<E> extends LinkedList<E> {
-
-        private static final long serialVersionUID = -7922444728484144237L;
-        private int limit;
-
-        public LimitedQueue(int limit) {
-            this.limit = limit;
-        }
-
-        @Override
-        public boolean add(E e) {
-            boolean added = super.add(e);
-            while (added && size() > limit) {
-                remove();
-            }
-            return added;
-        }
-    }
-
 }
@@ -0,0 +1,21 @@
+package com.thebuyback.eve.config.dbmigrations;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import com.thebuyback.eve.domain.EsiCacheEntry;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Cache entries without a storedAt date are never deleted by the ttl index.
+ */
+@ChangeLog(order = "006")
+public class EsiCacheRetention {
+
+    @ChangeSet(order = "06", author = "initiator", id = "06-removeEsiCacheEntriesWithoutDate")
+    public void removeEntriesWithoutDate(MongoTemplate mongoTemplate) {
+        mongoTemplate.remove(Query.query(Criteria.where("storedAt").exists(false)), EsiCacheEntry.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.thebuyback.eve.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The name of a character, corporation, alliance or other entity as resolved by ESI's /universe/names.
+ */
+@Document(collection = "entityName")
+public class EntityName {
+
+    @Id
+    private long id;
+    private String name;
+    private String category;
+
+    public EntityName() {
+    }
+
+    public EntityName(final long id, final String name, final String category) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(final long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(final String category) {
+        this.category = category;
+    }
+}
@@ -0,0 +1,101 @@
+package com.thebuyback.eve.domain;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The last response of an ESI GET request. The body is stored gzip compressed. Mongo deletes entries that weren't
+ * stored or refreshed for {@value #RETENTION_SECONDS} seconds, most urls, e.g. contract items and searches, are
+ * never requested again.
+ */
+@Document(collection = "esiCacheEntry")
+public class EsiCacheEntry {
+
+    public static final int RETENTION_SECONDS = 604_800; // 7 days
+
+    // the request url without the access token
+    @Id
+    private String key;
+    private String etag;
+    private Instant expires;
+    private int pageCount;
+    private int size;
+    private byte[] body;
+    // a ttl index needs a date, it is updated whenever ESI confirms or replaces the body
+    @Indexed(expireAfterSeconds = RETENTION_SECONDS)
+    private Date storedAt;
+
+    public EsiCacheEntry() {
+    }
+
+    public EsiCacheEntry(final String key, final String etag, final Instant expires, final int pageCount,
+                         final int size, final byte[] body, final Date storedAt) {
+        this.key = key;
+        this.etag = etag;
+        this.expires = expires;
+        this.pageCount = pageCount;
+        this.size = size;
+        this.body = body;
+        this.storedAt = storedAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(final String key) {
+        this.key = key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(final String etag) {
+        this.etag = etag;
+    }
+
+    public Instant getExpires() {
+        return expires;
+    }
+
+    public void setExpires(final Instant expires) {
+        this.expires = expires;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(final int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(final int size) {
+        this.size = size;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(final byte[] body) {
+        this.body = body;
+    }
+
+    public Date getStoredAt() {
+        return storedAt;
+    }
+
+    public void setStoredAt(final Date storedAt) {
+        this.storedAt = storedAt;
+    }
+}
@@ -0,0 +1,52 @@
+package com.thebuyback.eve.domain;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Points to the generation of market orders that readers of a location should see. A new generation becomes visible
+ * by replacing this single document after all of its orders have been written.
+ */
+@Document(collection = "marketGeneration")
+public class MarketGeneration {
+
+    @Id
+    private long locationId;
+    private long generation;
+    private Instant timestamp;
+
+    public MarketGeneration() {
+    }
+
+    public MarketGeneration(final long locationId, final long generation, final Instant timestamp) {
+        this.locationId = locationId;
+        this.generation = generation;
+        this.timestamp = timestamp;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(final long locationId) {
+        this.locationId = locationId;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(final long generation) {
+        this.generation = generation;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -2,9 +2,15 @@ package com.thebuyback.eve.domain;
 
 import java.time.Instant;
 
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "marketOrder")
+@CompoundIndexes({
+    @CompoundIndex(name = "location_order", def = "{'locationId': 1, 'orderId': 1}"),
+    @CompoundIndex(name = "location_generation", def = "{'locationId': 1, 'toGeneration': 1}")
+})
 public class MarketOrder {
 
     private Long orderId;
@@ -19,6 +25,9 @@ public class MarketOrder {
     private Instant issued;
     private String range;
     private Instant timestamp;
+    // the order is visible in the generations [fromGeneration, toGeneration), toGeneration is null while it's current
+    private Long fromGeneration;
+    private Long toGeneration;
 
     public MarketOrder() {
     }
@@ -119,6 +128,22 @@ public class MarketOrder {
         return timestamp;
     }
 
+    public Long getFromGeneration() {
+        return fromGeneration;
+    }
+
+    public void setFromGeneration(final Long fromGeneration) {
+        this.fromGeneration = fromGeneration;
+    }
+
+    public Long getToGeneration() {
+        return toGeneration;
+    }
+
+    public void setToGeneration(final Long toGeneration) {
+        this.toGeneration = toGeneration;
+    }
+
     @Override
     public String toString() {
         return "EsiMarketOrder{" +
@@ -134,6 +159,8 @@ public class MarketOrder {
                ", issued=" + issued +
                ", range='" + range + '\'' +
                ", timestamp=" + timestamp +
+               ", fromGeneration=" + fromGeneration +
+               ", toGeneration=" + toGeneration +
                '}';
     }
 }
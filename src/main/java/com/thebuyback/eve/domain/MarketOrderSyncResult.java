@@ -0,0 +1,46 @@
+package com.thebuyback.eve.domain;
+
+/**
+ * The number of market orders that were written when a location was synchronized with esi, and the generation that
+ * is current afterwards.
+ */
+public class MarketOrderSyncResult {
+
+    private final int inserted;
+    private final int updated;
+    private final int deleted;
+    private final long generation;
+
+    public MarketOrderSyncResult(final int inserted, final int updated, final int deleted, final long generation) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.generation = generation;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public String toString() {
+        return "MarketOrderSyncResult{" +
+               "inserted=" + inserted +
+               ", updated=" + updated +
+               ", deleted=" + deleted +
+               ", generation=" + generation +
+               '}';
+    }
+}
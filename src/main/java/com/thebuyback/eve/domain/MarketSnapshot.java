@@ -0,0 +1,444 @@
+package com.thebuyback.eve.domain;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * The market orders of one location in a columnar layout.
+ *
+ * Orders are sorted by typeId, then sell before buy orders, then from the best to the worst price. Every column
+ * is a region of one {@link ByteBuffer}, which is either on the heap or a direct buffer outside of it. An order
+ * takes {@value #BYTES_PER_ORDER} bytes. Per type only the start of its sell and buy orders is kept in a small
+ * on-heap index.
+ *
+ * {@link MarketOrder} instances are only created on demand through {@link #toMarketOrder(int)}.
+ */
+public final class MarketSnapshot {
+
+    public static final int BYTES_PER_ORDER = 8 + 8 + 8 + 8 + 4 + 4 + 4 + 4 + 1;
+
+    private static final String[] RANGES = {"station", "region", "solarsystem", "1", "2", "3", "4", "5",
+                                            "10", "20", "30", "40"};
+
+    private final long locationId;
+    private final Instant timestamp;
+    private final int size;
+
+    private final long[] typeIds;
+    // sell orders of typeIds[t] are in [typeStarts[t], buyStarts[t]), buy orders in [buyStarts[t], typeStarts[t + 1])
+    private final int[] typeStarts;
+    private final int[] buyStarts;
+
+    private final ByteBuffer columns;
+    private final Layout layout;
+
+    private MarketSnapshot(final long locationId, final Instant timestamp, final int size, final long[] typeIds,
+                           final int[] typeStarts, final int[] buyStarts, final ByteBuffer columns) {
+        this.locationId = locationId;
+        this.timestamp = timestamp;
+        this.size = size;
+        this.typeIds = typeIds;
+        this.typeStarts = typeStarts;
+        this.buyStarts = buyStarts;
+        this.columns = columns;
+        layout = new Layout(size);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return columns.isDirect();
+    }
+
+    /**
+     * @return the bytes taken by the order columns and the type index
+     */
+    public long getSizeInBytes() {
+        return (long) columns.capacity() + typeIds.length * 8L + typeStarts.length * 4L + buyStarts.length * 4L;
+    }
+
+    public int getTypeCount() {
+        return typeIds.length;
+    }
+
+    public long getTypeIdAt(final int typeIndex) {
+        return typeIds[typeIndex];
+    }
+
+    /**
+     * @return the position of the type in the type index, or a negative value if there are no orders for it
+     */
+    public int indexOfType(final long typeId) {
+        return Arrays.binarySearch(typeIds, typeId);
+    }
+
+    public int getSellStart(final int typeIndex) {
+        return typeStarts[typeIndex];
+    }
+
+    public int getSellEnd(final int typeIndex) {
+        return buyStarts[typeIndex];
+    }
+
+    public int getBuyStart(final int typeIndex) {
+        return buyStarts[typeIndex];
+    }
+
+    public int getBuyEnd(final int typeIndex) {
+        return typeStarts[typeIndex + 1];
+    }
+
+    public long getOrderId(final int row) {
+        return columns.getLong(row * 8);
+    }
+
+    public double getPrice(final int row) {
+        return columns.getDouble(layout.priceOffset + row * 8);
+    }
+
+    /**
+     * @return the remaining volume of this and all better priced orders of the same type and side
+     */
+    public long getCumulativeVolume(final int row) {
+        return columns.getLong(layout.cumulativeVolumeOffset + row * 8);
+    }
+
+    public long getIssuedEpochSecond(final int row) {
+        return columns.getLong(layout.issuedOffset + row * 8);
+    }
+
+    public int getVolumeRemain(final int row) {
+        return columns.getInt(layout.volumeRemainOffset + row * 4);
+    }
+
+    public int getVolumeTotal(final int row) {
+        return columns.getInt(layout.volumeTotalOffset + row * 4);
+    }
+
+    public int getMinVolume(final int row) {
+        return columns.getInt(layout.minVolumeOffset + row * 4);
+    }
+
+    public int getDuration(final int row) {
+        return columns.getInt(layout.durationOffset + row * 4);
+    }
+
+    public String getRange(final int row) {
+        final byte range = columns.get(layout.rangeOffset + row);
+        return range < 0 ? null : RANGES[range];
+    }
+
+    public long getTypeId(final int row) {
+        int low = 0;
+        int high = typeIds.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (typeStarts[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return typeIds[low];
+    }
+
+    public boolean isBuyOrder(final int row) {
+        return row >= buyStarts[indexOfType(getTypeId(row))];
+    }
+
+    public MarketOrder toMarketOrder(final int row) {
+        final MarketOrder order = new MarketOrder();
+        order.setOrderId(getOrderId(row));
+        order.setTypeId(getTypeId(row));
+        order.setLocationId(locationId);
+        order.setVolumeTotal((long) getVolumeTotal(row));
+        order.setVolumeRemain((long) getVolumeRemain(row));
+        order.setMinVolume((long) getMinVolume(row));
+        order.setPrice(getPrice(row));
+        order.setBuyOrder(isBuyOrder(row));
+        order.setDuration(getDuration(row));
+        order.setIssued(Instant.ofEpochSecond(getIssuedEpochSecond(row)));
+        order.setRange(getRange(row));
+        order.setTimestamp(timestamp);
+        return order;
+    }
+
+    /**
+     * @return the code of the range, or -1 if it's unknown
+     */
+    public static byte rangeCode(final CharSequence range) {
+        for (byte i = 0; i < RANGES.length; i++) {
+            if (contentEquals(RANGES[i], range)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contentEquals(final String known, final CharSequence range) {
+        if (known.length() != range.length()) {
+            return false;
+        }
+        for (int i = 0; i < known.length(); i++) {
+            if (known.charAt(i) != range.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start offsets of the columns in the buffer. The order ids start at 0.
+     */
+    private static final class Layout {
+        private final int priceOffset;
+        private final int cumulativeVolumeOffset;
+        private final int issuedOffset;
+        private final int volumeRemainOffset;
+        private final int volumeTotalOffset;
+        private final int minVolumeOffset;
+        private final int durationOffset;
+        private final int rangeOffset;
+
+        private Layout(final int size) {
+            priceOffset = size * 8;
+            cumulativeVolumeOffset = priceOffset + size * 8;
+            issuedOffset = cumulativeVolumeOffset + size * 8;
+            volumeRemainOffset = issuedOffset + size * 8;
+            volumeTotalOffset = volumeRemainOffset + size * 4;
+            minVolumeOffset = volumeTotalOffset + size * 4;
+            durationOffset = minVolumeOffset + size * 4;
+            rangeOffset = durationOffset + size * 4;
+        }
+    }
+
+    /**
+     * Collects orders in growable primitive arrays. Not thread safe, use one builder per page and
+     * {@link #addAll(Builder)} them in page order.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] orderIds = new long[16];
+        private long[] typeIds = new long[16];
+        private boolean[] buyOrders = new boolean[16];
+        private double[] prices = new double[16];
+        private long[] issued = new long[16];
+        private int[] volumeRemains = new int[16];
+        private int[] volumeTotals = new int[16];
+        private int[] minVolumes = new int[16];
+        private int[] durations = new int[16];
+        private byte[] ranges = new byte[16];
+
+        private Builder() {
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder add(final long orderId, final long typeId, final boolean isBuyOrder, final double price,
+                           final int volumeRemain, final int volumeTotal, final int minVolume, final int duration,
+                           final long issuedEpochSecond, final byte range) {
+            ensureCapacity(size + 1);
+            orderIds[size] = orderId;
+            typeIds[size] = typeId;
+            buyOrders[size] = isBuyOrder;
+            prices[size] = price;
+            volumeRemains[size] = volumeRemain;
+            volumeTotals[size] = volumeTotal;
+            minVolumes[size] = minVolume;
+            durations[size] = duration;
+            issued[size] = issuedEpochSecond;
+            ranges[size] = range;
+            size++;
+            return this;
+        }
+
+        public Builder add(final MarketOrder order) {
+            return add(order.getOrderId(), order.getTypeId(), Boolean.TRUE.equals(order.isBuyOrder()),
+                       order.getPrice(), toInt(order.getVolumeRemain()), toInt(order.getVolumeTotal()),
+                       toInt(order.getMinVolume()), null == order.getDuration() ? 0 : order.getDuration(),
+                       null == order.getIssued() ? 0L : order.getIssued().getEpochSecond(),
+                       null == order.getRange() ? -1 : rangeCode(order.getRange()));
+        }
+
+        public Builder addAll(final Builder other) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.orderIds, 0, orderIds, size, other.size);
+            System.arraycopy(other.typeIds, 0, typeIds, size, other.size);
+            System.arraycopy(other.buyOrders, 0, buyOrders, size, other.size);
+            System.arraycopy(other.prices, 0, prices, size, other.size);
+            System.arraycopy(other.volumeRemains, 0, volumeRemains, size, other.size);
+            System.arraycopy(other.volumeTotals, 0, volumeTotals, size, other.size);
+            System.arraycopy(other.minVolumes, 0, minVolumes, size, other.size);
+            System.arraycopy(other.durations, 0, durations, size, other.size);
+            System.arraycopy(other.issued, 0, issued, size, other.size);
+            System.arraycopy(other.ranges, 0, ranges, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        /**
+         * Sorts the collected orders into a snapshot. If an order was added more than once, the last one wins.
+         */
+        public MarketSnapshot build(final long locationId, final Instant timestamp, final boolean offHeap) {
+            final int[] rows = sortedUniqueRows();
+            final int count = rows.length;
+
+            final ByteBuffer columns = offHeap ? ByteBuffer.allocateDirect(count * BYTES_PER_ORDER)
+                                               : ByteBuffer.allocate(count * BYTES_PER_ORDER);
+            final Layout layout = new Layout(count);
+
+            final long[] snapshotTypeIds = new long[count];
+            final int[] typeStarts = new int[count + 1];
+            final int[] buyStarts = new int[count];
+            int types = -1;
+            long cumulativeVolume = 0;
+            for (int i = 0; i < count; i++) {
+                final int row = rows[i];
+                final boolean newType = types < 0 || snapshotTypeIds[types] != typeIds[row];
+                if (newType) {
+                    types++;
+                    snapshotTypeIds[types] = typeIds[row];
+                    typeStarts[types] = i;
+                    buyStarts[types] = buyOrders[row] ? i : -1;
+                    cumulativeVolume = 0;
+                } else if (buyOrders[row] && buyStarts[types] < 0) {
+                    buyStarts[types] = i;
+                    cumulativeVolume = 0;
+                }
+                cumulativeVolume += volumeRemains[row];
+
+                columns.putLong(i * 8, orderIds[row]);
+                columns.putDouble(layout.priceOffset + i * 8, prices[row]);
+                columns.putLong(layout.cumulativeVolumeOffset + i * 8, cumulativeVolume);
+                columns.putLong(layout.issuedOffset + i * 8, issued[row]);
+                columns.putInt(layout.volumeRemainOffset + i * 4, volumeRemains[row]);
+                columns.putInt(layout.volumeTotalOffset + i * 4, volumeTotals[row]);
+                columns.putInt(layout.minVolumeOffset + i * 4, minVolumes[row]);
+                columns.putInt(layout.durationOffset + i * 4, durations[row]);
+                columns.put(layout.rangeOffset + i, ranges[row]);
+            }
+            final int typeCount = types + 1;
+            typeStarts[typeCount] = count;
+            for (int t = 0; t < typeCount; t++) {
+                if (buyStarts[t] < 0) {
+                    // only sell orders for this type
+                    buyStarts[t] = typeStarts[t + 1];
+                }
+            }
+            return new MarketSnapshot(locationId, timestamp, count, Arrays.copyOf(snapshotTypeIds, typeCount),
+                                      Arrays.copyOf(typeStarts, typeCount + 1), Arrays.copyOf(buyStarts, typeCount),
+                                      columns);
+        }
+
+        private int[] sortedUniqueRows() {
+            // keep the last row of every order id
+            final int[] byOrderId = identity(size);
+            sort(byOrderId, (a, b) -> {
+                final int compare = Long.compare(orderIds[a], orderIds[b]);
+                return compare != 0 ? compare : Integer.compare(a, b);
+            });
+            final int[] unique = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (i + 1 < size && orderIds[byOrderId[i]] == orderIds[byOrderId[i + 1]]) {
+                    continue;
+                }
+                unique[count++] = byOrderId[i];
+            }
+
+            final int[] rows = Arrays.copyOf(unique, count);
+            sort(rows, (a, b) -> {
+                int compare = Long.compare(typeIds[a], typeIds[b]);
+                if (compare != 0) {
+                    return compare;
+                }
+                compare = Boolean.compare(buyOrders[a], buyOrders[b]);
+                if (compare != 0) {
+                    return compare;
+                }
+                // sell orders from the lowest, buy orders from the highest price
+                compare = buyOrders[a] ? Double.compare(prices[b], prices[a]) : Double.compare(prices[a], prices[b]);
+                return compare != 0 ? compare : Long.compare(orderIds[a], orderIds[b]);
+            });
+            return rows;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity <= orderIds.length) {
+                return;
+            }
+            final int newCapacity = Math.max(capacity, orderIds.length * 2);
+            orderIds = Arrays.copyOf(orderIds, newCapacity);
+            typeIds = Arrays.copyOf(typeIds, newCapacity);
+            buyOrders = Arrays.copyOf(buyOrders, newCapacity);
+            prices = Arrays.copyOf(prices, newCapacity);
+            volumeRemains = Arrays.copyOf(volumeRemains, newCapacity);
+            volumeTotals = Arrays.copyOf(volumeTotals, newCapacity);
+            minVolumes = Arrays.copyOf(minVolumes, newCapacity);
+            durations = Arrays.copyOf(durations, newCapacity);
+            issued = Arrays.copyOf(issued, newCapacity);
+            ranges = Arrays.copyOf(ranges, newCapacity);
+        }
+
+        private static int toInt(final Long value) {
+            return null == value ? 0 : (int) Math.min(Integer.MAX_VALUE, value);
+        }
+
+        private static int[] identity(final int size) {
+            final int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = i;
+            }
+            return result;
+        }
+
+        /**
+         * Merge sort on row indices, so the columns don't have to be boxed for sorting.
+         */
+        private static void sort(final int[] rows, final RowComparator comparator) {
+            final int[] buffer = new int[rows.length];
+            for (int width = 1; width < rows.length; width *= 2) {
+                for (int low = 0; low < rows.length - width; low += 2 * width) {
+                    final int mid = low + width;
+                    final int high = Math.min(low + 2 * width, rows.length);
+                    int left = low;
+                    int right = mid;
+                    int target = low;
+                    while (left < mid && right < high) {
+                        buffer[target++] = comparator.compare(rows[left], rows[right]) <= 0 ? rows[left++] : rows[right++];
+                    }
+                    while (left < mid) {
+                        buffer[target++] = rows[left++];
+                    }
+                    while (right < high) {
+                        buffer[target++] = rows[right++];
+                    }
+                    System.arraycopy(buffer, low, rows, low, high - low);
+                }
+            }
+        }
+
+        @FunctionalInterface
+        private interface RowComparator {
+            int compare(int a, int b);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.thebuyback.eve.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +18,6 @@ public interface ContractRepository extends MongoRepository<Contract,String> {
     List<Contract> findAllByStatusAndAssigneeIdAndIssuerCorporationId(String status, long assigneeId, long issuerCorporationId);
     List<Contract> findAllByStatusAndAssigneeId(String status, long assigneeId);
     Optional<Contract> findById(long contractId);
+    List<Contract> findByIdIn(Collection<Long> contractIds);
     List<Contract> findTop50ByOreValueNullAndStatusAndAppraisalLinkNotNull(String status);
 }
@@ -0,0 +1,8 @@
+package com.thebuyback.eve.repository;
+
+import com.thebuyback.eve.domain.EntityName;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EntityNameRepository extends MongoRepository<EntityName, Long> {
+}
@@ -0,0 +1,8 @@
+package com.thebuyback.eve.repository;
+
+import com.thebuyback.eve.domain.EsiCacheEntry;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EsiCacheEntryRepository extends MongoRepository<EsiCacheEntry, String> {
+}
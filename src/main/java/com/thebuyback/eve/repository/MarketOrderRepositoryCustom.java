@@ -0,0 +1,33 @@
+package com.thebuyback.eve.repository;
+
+import java.util.List;
+
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.MarketOrderSyncResult;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+/**
+ * Market orders are versioned by generation. Changes are written as a new generation next to the current one and
+ * published by moving the location's {@link com.thebuyback.eve.domain.MarketGeneration} pointer, so readers never
+ * see a partially written set of orders.
+ */
+public interface MarketOrderRepositoryCustom {
+
+    /**
+     * Brings the stored orders of a location in line with a fresh snapshot. Only orders that were added, changed
+     * their price or remaining volume, or disappeared are written. The snapshot already holds every order only once.
+     */
+    MarketOrderSyncResult syncLocation(MarketSnapshot snapshot);
+
+    /**
+     * @return the orders of the location's current generation
+     */
+    List<MarketOrder> findCurrentByLocationId(long locationId);
+
+    /**
+     * Removes order versions that were replaced before the given generation.
+     *
+     * @return the number of removed versions
+     */
+    long removeGenerationsBefore(long locationId, long generation);
+}
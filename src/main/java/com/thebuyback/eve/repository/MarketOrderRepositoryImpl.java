@@ -0,0 +1,133 @@
+package com.thebuyback.eve.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thebuyback.eve.domain.MarketGeneration;
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.MarketOrderSyncResult;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class MarketOrderRepositoryImpl implements MarketOrderRepositoryCustom {
+
+    private static final int CLOSE_BATCH_SIZE = 1000;
+    private static final String FROM_GENERATION = "fromGeneration";
+    private static final String TO_GENERATION = "toGeneration";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MarketOrderRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public MarketOrderSyncResult syncLocation(final MarketSnapshot snapshot) {
+        final long locationId = snapshot.getLocationId();
+        final long current = getCurrentGeneration(locationId);
+        final long next = current + 1;
+        discardUnpublished(locationId, current);
+        final Map<Long, MarketOrder> stored = findOpenOrders(locationId);
+
+        // documents are only created for orders that are new or changed, everything else is read from the columns
+        final List<MarketOrder> inserts = new ArrayList<>();
+        final List<Long> closes = new ArrayList<>();
+        int updated = 0;
+        for (int row = 0; row < snapshot.size(); row++) {
+            final MarketOrder storedOrder = stored.remove(snapshot.getOrderId(row));
+            if (null != storedOrder && !hasChanged(storedOrder, snapshot, row)) {
+                continue;
+            }
+            if (null != storedOrder) {
+                // the old version stays visible to readers of the current generation
+                closes.add(storedOrder.getOrderId());
+                updated++;
+            }
+            final MarketOrder order = snapshot.toMarketOrder(row);
+            order.setFromGeneration(next);
+            inserts.add(order);
+        }
+        // whatever is left didn't show up in the snapshot anymore
+        final int deleted = stored.size();
+        closes.addAll(stored.keySet());
+
+        if (inserts.isEmpty() && closes.isEmpty()) {
+            return new MarketOrderSyncResult(0, 0, 0, current);
+        }
+        final BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, MarketOrder.class);
+        if (!inserts.isEmpty()) {
+            operations.insert(inserts);
+        }
+        for (int i = 0; i < closes.size(); i += CLOSE_BATCH_SIZE) {
+            final List<Long> batch = closes.subList(i, Math.min(i + CLOSE_BATCH_SIZE, closes.size()));
+            // the bulk is unordered, so the versions inserted above must not be closed as well
+            operations.updateMulti(query(where("locationId").is(locationId).and("orderId").in(batch)
+                                                            .and(TO_GENERATION).is(null)
+                                                            .and(FROM_GENERATION).ne(next)),
+                                   new Update().set(TO_GENERATION, next));
+        }
+        operations.execute();
+
+        // a single document write, readers switch to the new generation all at once
+        mongoTemplate.save(new MarketGeneration(locationId, next, Instant.now()));
+        return new MarketOrderSyncResult(inserts.size() - updated, updated, deleted, next);
+    }
+
+    @Override
+    public List<MarketOrder> findCurrentByLocationId(final long locationId) {
+        final long generation = getCurrentGeneration(locationId);
+        // orders stored before generations were introduced have neither field and belong to every generation
+        return mongoTemplate.find(query(where("locationId").is(locationId)
+                                            .and(FROM_GENERATION).not().gt(generation)
+                                            .orOperator(where(TO_GENERATION).is(null),
+                                                        where(TO_GENERATION).gt(generation))),
+                                  MarketOrder.class);
+    }
+
+    @Override
+    public long removeGenerationsBefore(final long locationId, final long generation) {
+        return mongoTemplate.remove(query(where("locationId").is(locationId).and(TO_GENERATION).lt(generation)),
+                                    MarketOrder.class).getN();
+    }
+
+    private long getCurrentGeneration(final long locationId) {
+        final MarketGeneration generation = mongoTemplate.findById(locationId, MarketGeneration.class);
+        return null == generation ? 0L : generation.getGeneration();
+    }
+
+    /**
+     * Rolls back the writes of a sync that failed before its generation was published.
+     */
+    private void discardUnpublished(final long locationId, final long current) {
+        mongoTemplate.remove(query(where("locationId").is(locationId).and(FROM_GENERATION).gt(current)),
+                             MarketOrder.class);
+        mongoTemplate.updateMulti(query(where("locationId").is(locationId).and(TO_GENERATION).gt(current)),
+                                  new Update().unset(TO_GENERATION), MarketOrder.class);
+    }
+
+    private Map<Long, MarketOrder> findOpenOrders(final long locationId) {
+        final Query query = query(where("locationId").is(locationId).and(TO_GENERATION).is(null));
+        query.fields().include("orderId").include("price").include("volumeRemain");
+        final Map<Long, MarketOrder> stored = new HashMap<>();
+        mongoTemplate.find(query, MarketOrder.class).forEach(order -> stored.put(order.getOrderId(), order));
+        return stored;
+    }
+
+    private static boolean hasChanged(final MarketOrder stored, final MarketSnapshot snapshot, final int row) {
+        return null == stored.getPrice() || null == stored.getVolumeRemain()
+               || Double.compare(stored.getPrice(), snapshot.getPrice(row)) != 0
+               || stored.getVolumeRemain() != snapshot.getVolumeRemain(row);
+    }
+}
@@ -0,0 +1,14 @@
+package com.thebuyback.eve.repository;
+
+import java.util.Collection;
+
+import com.thebuyback.eve.domain.stock.TypeStockHistory;
+
+public interface TypeStockHistoryRepositoryCustom {
+
+    /**
+     * Writes all histories in one unordered bulk operation. Histories without an id are inserted. For the others the
+     * latest quantity is set, while the min and max values can only move outwards.
+     */
+    void bulkUpsert(Collection<TypeStockHistory> histories);
+}
@@ -0,0 +1,59 @@
+package com.thebuyback.eve.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.thebuyback.eve.domain.stock.TypeStockHistory;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class TypeStockHistoryRepositoryImpl implements TypeStockHistoryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public TypeStockHistoryRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void bulkUpsert(final Collection<TypeStockHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        final List<TypeStockHistory> inserts = new ArrayList<>();
+        final BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, TypeStockHistory.class);
+        for (final TypeStockHistory history : histories) {
+            if (null == history.getId()) {
+                inserts.add(history);
+                continue;
+            }
+            // $min and $max keep the bounds correct even if another write got in since the histories were read
+            final Update update = new Update().set("latestQuantity", history.getLatestQuantity())
+                                              .min("minQuantity", history.getMinQuantity())
+                                              .max("maxQuantity", history.getMaxQuantity());
+            if (null != history.getMinPrice()) {
+                update.min("minPrice", history.getMinPrice());
+            }
+            if (null != history.getMaxPrice()) {
+                update.max("maxPrice", history.getMaxPrice());
+            }
+            operations.updateOne(query(where("_id").is(toObjectId(history.getId()))), update);
+        }
+        if (!inserts.isEmpty()) {
+            operations.insert(inserts);
+        }
+        operations.execute();
+    }
+
+    private static Object toObjectId(final String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,126 @@
+package com.thebuyback.eve.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.mashape.unirest.http.exceptions.UnirestException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the SSO access tokens per clientId until shortly before they expire. If a token has to be refreshed, all
+ * callers that ask for it in the meantime wait for the same refresh.
+ */
+@Service
+public class AccessTokenCache {
+
+    // leaves enough time for the requests that are sent with the token
+    private static final long EXPIRY_MARGIN_SECONDS = 60L;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, AccessToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<AccessToken>> refreshes = new ConcurrentHashMap<>();
+    private final Meter refreshMeter;
+
+    public AccessTokenCache(final MetricRegistry metricRegistry) {
+        refreshMeter = metricRegistry.meter(name(AccessTokenCache.class, "refreshes"));
+        // extrapolated from the 15 minute rate, which is per second
+        metricRegistry.register(name(AccessTokenCache.class, "refreshes-per-hour"),
+                                (Gauge<Double>) () -> refreshMeter.getFifteenMinuteRate() * 3600);
+    }
+
+    public String getAccessToken(final String clientId, final TokenLoader loader) throws UnirestException {
+        final AccessToken cached = tokens.get(clientId);
+        if (null != cached && cached.isValid()) {
+            return cached.getValue();
+        }
+
+        final CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        final CompletableFuture<AccessToken> running = refreshes.putIfAbsent(clientId, refresh);
+        if (null != running) {
+            return await(running).getValue();
+        }
+        try {
+            // another caller may have finished its refresh between the lookup and claiming the refresh
+            final AccessToken current = tokens.get(clientId);
+            if (null != current && current.isValid()) {
+                refresh.complete(current);
+                return current.getValue();
+            }
+            final AccessToken token = loader.load();
+            tokens.put(clientId, token);
+            refreshMeter.mark();
+            log.debug("Refreshed the access token of client {}.", clientId);
+            refresh.complete(token);
+            return token.getValue();
+        } catch (UnirestException | RuntimeException e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshes.remove(clientId, refresh);
+        }
+    }
+
+    /**
+     * Drops a token that ESI rejected, e.g. because it was revoked, so that the next caller refreshes it instead of
+     * reusing it until it expires.
+     */
+    public void evict(final String accessToken) {
+        tokens.values().removeIf(token -> token.getValue().equals(accessToken));
+    }
+
+    private static AccessToken await(final CompletableFuture<AccessToken> refresh) throws UnirestException {
+        try {
+            return refresh.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnirestException) {
+                throw (UnirestException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnirestException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface TokenLoader {
+        AccessToken load() throws UnirestException;
+    }
+
+    public static final class AccessToken {
+        private final String value;
+        private final Instant expires;
+
+        public AccessToken(final String value, final Instant expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public Instant getExpires() {
+            return expires;
+        }
+
+        boolean isValid() {
+            return expires.minusSeconds(EXPIRY_MARGIN_SECONDS).isAfter(Instant.now());
+        }
+    }
+}
@@ -9,7 +9,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.thebuyback.eve.config.AppraisalService;
 import com.thebuyback.eve.domain.Appraisal;
@@ -20,9 +19,8 @@ import com.thebuyback.eve.domain.Token;
 import com.thebuyback.eve.repository.NetWorthHistoryRepository;
 import com.thebuyback.eve.repository.AssetRepository;
 import com.thebuyback.eve.repository.TokenRepository;
+import com.thebuyback.eve.service.dto.esi.EsiAsset;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -90,6 +88,10 @@ public class AssetParser implements SchedulingConfigurer {
         log.info("Building location hierarchy.");
         final Map<Long, Long> locationHierarchy = buildLocationHierarchy(assets);
 
+        log.info("Resolving types.");
+        // resolves all unknown types at once instead of one after another while the assets are enhanced
+        typeService.getTypes(assets.stream().map(Asset::getTypeId).collect(Collectors.toSet()));
+
         log.info("Enhancing assets information.");
         final List<Asset> enhancedAssets = assets.stream().peek(asset -> {
             long locationId = asset.getLocationId();
@@ -144,19 +146,13 @@ public class AssetParser implements SchedulingConfigurer {
         int pageCounter = 1;
 
         while (nextPageAvailable) {
-            final Optional<JsonNode> jsonNode = requestService.getAssets(accessToken, pageCounter);
-            if (jsonNode.isPresent()) {
-                final JSONArray assetsArray = jsonNode.get().getArray();
-                for (int i = 0; i < assetsArray.length(); i++) {
-                    final JSONObject asset = assetsArray.getJSONObject(i);
-                    final long typeId = asset.getLong("type_id");
-                    final long itemId = asset.getLong("item_id");
-                    final String locationFlag = asset.getString("location_flag");
-                    final long locationId = asset.getLong("location_id");
-                    final long quantity = asset.getLong("quantity");
-                    assets.add(new Asset(itemId, typeId, quantity, locationId, locationFlag));
+            final Optional<List<EsiAsset>> page = requestService.getAssets(accessToken, pageCounter);
+            if (page.isPresent()) {
+                for (final EsiAsset asset : page.get()) {
+                    assets.add(new Asset(asset.getItemId(), asset.getTypeId(), asset.getQuantity(),
+                                         asset.getLocationId(), asset.getLocationFlag()));
                 }
-                if (assetsArray.length() < 1000) {
+                if (page.get().size() < 1000) {
                     nextPageAvailable = false;
                 } else {
                     pageCounter++;
@@ -194,7 +190,7 @@ public class AssetParser implements SchedulingConfigurer {
         taskRegistrar.setScheduler(taskExecutor());
         taskRegistrar.addTriggerTask(
             this::refreshAssets,
-            triggerContext -> Date.from(requestService.getNextExecutionTime("corpAssets")));
+            triggerContext -> Date.from(requestService.getNextExecutionTime(EsiEndpoint.CORP_ASSETS)));
     }
 
 }
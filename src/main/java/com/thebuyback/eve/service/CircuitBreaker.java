@@ -0,0 +1,93 @@
+package com.thebuyback.eve.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stops requests to an endpoint after it failed several times in a row.
+ *
+ * While the breaker is open, no requests are allowed. Once the open duration has passed, a single trial request is let
+ * through (half-open). If it succeeds the breaker closes again, otherwise it stays open for another round.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil;
+    private boolean trialRunning;
+
+    public CircuitBreaker(final int failureThreshold, final Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public synchronized boolean allowRequest() {
+        updateState();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialRunning) {
+                    return false;
+                }
+                trialRunning = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gives back an allowed request that wasn't sent, so that a half-open breaker lets the next trial through.
+     */
+    public synchronized void cancelRequest() {
+        trialRunning = false;
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openUntil = null;
+        trialRunning = false;
+    }
+
+    public synchronized void recordFailure() {
+        updateState();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = Instant.now().plus(openDuration);
+        }
+        trialRunning = false;
+    }
+
+    public synchronized State getState() {
+        updateState();
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return the time until the breaker stays open, null if it isn't open
+     */
+    public synchronized Instant getOpenUntil() {
+        updateState();
+        return state == State.OPEN ? openUntil : null;
+    }
+
+    private void updateState() {
+        if (state == State.OPEN && !openUntil.isAfter(Instant.now())) {
+            state = State.HALF_OPEN;
+            trialRunning = false;
+        }
+    }
+}
@@ -7,11 +7,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import static java.util.Arrays.asList;
 
 import com.codahale.metrics.annotation.Timed;
-import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.thebuyback.eve.config.AppraisalService;
 import com.thebuyback.eve.domain.Appraisal;
@@ -26,10 +27,12 @@ import com.thebuyback.eve.repository.CapitalShipRepository;
 import com.thebuyback.eve.repository.ContractRepository;
 import com.thebuyback.eve.repository.TokenRepository;
 import com.thebuyback.eve.repository.TypeBuybackRateRepository;
+import com.thebuyback.eve.service.dto.esi.EsiContract;
+import com.thebuyback.eve.service.dto.esi.EsiContractItem;
+import com.thebuyback.eve.service.dto.esi.EsiCorporation;
+import com.thebuyback.eve.service.dto.esi.EsiStructure;
 import static com.thebuyback.eve.web.rest.ContractsResource.THE_BUYBACK;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -61,6 +64,7 @@ public class ContractParser implements SchedulingConfigurer {
     private final CapitalShipRepository capitalShipRepository;
     private final TypeBuybackRateRepository buybackRateRepository;
     private final AppraisalService appraisalService;
+    private final NameResolver nameResolver;
     private final Environment env;
 
     public ContractParser(final JsonRequestService requestService,
@@ -69,7 +73,8 @@ public class ContractParser implements SchedulingConfigurer {
                           final TypeService typeService,
                           final CapitalShipRepository capitalShipRepository,
                           final TypeBuybackRateRepository buybackRateRepository,
-                          final AppraisalService appraisalService, final Environment env) {
+                          final AppraisalService appraisalService, final NameResolver nameResolver,
+                          final Environment env) {
         this.requestService = requestService;
         this.tokenRepository = tokenRepository;
         this.contractRepository = contractRepository;
@@ -77,6 +82,7 @@ public class ContractParser implements SchedulingConfigurer {
         this.capitalShipRepository = capitalShipRepository;
         this.buybackRateRepository = buybackRateRepository;
         this.appraisalService = appraisalService;
+        this.nameResolver = nameResolver;
         this.env = env;
     }
 
@@ -96,17 +102,24 @@ public class ContractParser implements SchedulingConfigurer {
         boolean nextPageAvailable = true;
         int pageCounter = 1;
         while (nextPageAvailable) {
-            final Optional<JsonNode> corpContracts = requestService.getCorpContracts(accessToken, pageCounter);
+            final Optional<List<EsiContract>> corpContracts = requestService.getCorpContracts(accessToken, pageCounter);
             if (corpContracts.isPresent()) {
-                JSONArray contractArray = corpContracts.get().getArray();
-                if (contractArray.length() < 1000) {
+                final List<EsiContract> contracts = corpContracts.get();
+                if (contracts.size() < 1000) {
                     nextPageAvailable = false;
                 } else {
                     pageCounter++;
                 }
-                for (int i = 0; i < contractArray.length(); i++) {
+                final Map<Long, EsiContract> newContracts = findNewItemExchangeContracts(contracts);
+                final Map<Long, CompletableFuture<Optional<List<EsiContractItem>>>> prefetchedItems =
+                    prefetchItems(accessToken, newContracts.keySet());
+                // only the issuers of contracts that will be processed, skipped contracts don't need a name
+                final Set<Long> issuerIds = newContracts.values().stream().map(EsiContract::getIssuerId)
+                                                        .collect(Collectors.toSet());
+                final Map<Long, String> issuerNames = nameResolver.resolveNames(issuerIds);
+                for (final EsiContract esiContract : contracts) {
                     try {
-                        processContract(accessToken, contractArray, i);
+                        processContract(accessToken, esiContract, prefetchedItems, issuerNames);
                     } catch (AppraisalFailed e) {
                         log.error("Failed to parse contract.", e);
                     }
@@ -124,6 +137,37 @@ public class ContractParser implements SchedulingConfigurer {
         log.info("Outstanding caps complete");
     }
 
+    /**
+     * @return the item exchange contracts of the page that are not stored yet and not skipped by processContract, by
+     * contractId
+     */
+    private Map<Long, EsiContract> findNewItemExchangeContracts(final List<EsiContract> page) {
+        final Map<Long, EsiContract> contracts = new HashMap<>();
+        for (final EsiContract esiContract : page) {
+            if ("item_exchange".equals(esiContract.getType())
+                && !(isAssignedToBraveCollective(esiContract.getAssigneeId())
+                     && !isFromTheBuyback(esiContract.getIssuerCorporationId()))) {
+                contracts.put(esiContract.getContractId(), esiContract);
+            }
+        }
+        if (!contracts.isEmpty()) {
+            contractRepository.findByIdIn(contracts.keySet()).forEach(contract -> contracts.remove(contract.getId()));
+        }
+        return contracts;
+    }
+
+    /**
+     * Requests the items of all given contracts at once, instead of one after another while the contracts are
+     * processed.
+     */
+    private Map<Long, CompletableFuture<Optional<List<EsiContractItem>>>> prefetchItems(final String accessToken,
+                                                                                       final Set<Long> contractIds) {
+        final Map<Long, CompletableFuture<Optional<List<EsiContractItem>>>> result = new HashMap<>();
+        contractIds.forEach(contractId -> result.put(contractId,
+                                                     requestService.getCorpContractItemsAsync(contractId, accessToken)));
+        return result;
+    }
+
     void loadOutstandingCaps() {
         List<CapitalShipOnContract> outstandingCaps = contractRepository
             .findAllByStatusAndAssigneeIdAndIssuerCorporationId("outstanding", 0L, THE_BUYBACK)
@@ -140,17 +184,17 @@ public class ContractParser implements SchedulingConfigurer {
         return new CapitalShipOnContract(CapitalShipStatus.PUBLIC_CONTRACT, contract.getPrice(), typeId, typeName);
     }
 
-    private void processContract(final String accessToken, final JSONArray contractArray, final int i)
+    private void processContract(final String accessToken, final EsiContract esiContract,
+                                 final Map<Long, CompletableFuture<Optional<List<EsiContractItem>>>> prefetchedItems,
+                                 final Map<Long, String> issuerNames)
         throws AppraisalFailed {
-        final JSONObject jsonContract = contractArray.getJSONObject(i);
-
-        long contractId = jsonContract.getLong("contract_id");
+        long contractId = esiContract.getContractId();
 
-        long issuerId = jsonContract.getLong("issuer_id");
-        long assigneeId = jsonContract.getLong("assignee_id");
-        long issuerCorporationId = jsonContract.getLong("issuer_corporation_id");
+        long issuerId = esiContract.getIssuerId();
+        long assigneeId = esiContract.getAssigneeId();
+        long issuerCorporationId = esiContract.getIssuerCorporationId();
 
-        if (!"item_exchange".equals(jsonContract.getString("type"))) {
+        if (!"item_exchange".equals(esiContract.getType())) {
             return;
         }
 
@@ -187,7 +231,7 @@ public class ContractParser implements SchedulingConfigurer {
             // delete the possibly already existing contract as we'll overwrite it in a second
             contractRepository.delete(contract);
         } else {
-            items = getItemsForContract(contractId, accessToken);
+            items = getItemsForContract(contractId, accessToken, prefetchedItems.get(contractId));
             if (items.isEmpty()) {
                 log.warn("Could not retrieve items for contract {}.", contractId);
                 return;
@@ -199,26 +243,18 @@ public class ContractParser implements SchedulingConfigurer {
             buyValue = appraisal.getJitaBuy();
             sellValue = appraisal.getJitaSell();
 
-            Optional<JsonNode> characterName = requestService.getCharacterName(issuerId);
-            characterName.ifPresent(jsonNode -> client[0] = jsonNode.getArray().getJSONObject(0)
-                                                                    .getString("name"));
+            client[0] = issuerNames.get(issuerId);
             declineMailSent = false;
             approved = false;
         }
 
-        String status = jsonContract.getString("status");
-        long startLocationId = jsonContract.getLong("start_location_id");
-        double price = jsonContract.getDouble("price");
-        double reward = jsonContract.getDouble("reward");
-        String title = null;
-        if (jsonContract.has("title")) {
-            title = jsonContract.getString("title");
-        }
-        Instant dateIssued = Instant.parse(jsonContract.getString("date_issued"));
-        Instant dateCompleted = null;
-        if (jsonContract.has("date_completed")) {
-            dateCompleted = Instant.parse(jsonContract.getString("date_completed"));
-        }
+        String status = esiContract.getStatus();
+        long startLocationId = esiContract.getStartLocationId();
+        double price = esiContract.getPrice();
+        double reward = esiContract.getReward();
+        String title = esiContract.getTitle();
+        Instant dateIssued = esiContract.getDateIssued();
+        Instant dateCompleted = esiContract.getDateCompleted();
 
         final Contract contract = new Contract(contractId, issuerId, issuerCorporationId, assigneeId, status,
                                                startLocationId, price, reward, items, appraisalLink, buyValue,
@@ -242,20 +278,19 @@ public class ContractParser implements SchedulingConfigurer {
             return true;
         } else {
             // structure, e.g. 1_023_729_674_815
-            final Optional<JsonNode> structureInfo = requestService.getStructureInfo(locationId, accessToken);
+            final Optional<EsiStructure> structureInfo = requestService.getStructureInfo(locationId, accessToken);
             final long ownerId;
             if (structureInfo.isPresent()) {
-                ownerId = structureInfo.get().getObject().getLong("owner_id");
+                ownerId = structureInfo.get().getOwnerId();
             } else {
                 log.warn("Failed to get location infos for structure={}.", locationId);
                 return true;
             }
 
-            final Optional<JsonNode> corpData = requestService.getCorporationInfo(ownerId);
+            final Optional<EsiCorporation> corpData = requestService.getCorporationInfo(ownerId);
             if (corpData.isPresent()) {
-                final JSONObject data = corpData.get().getObject();
-                if (data.has("alliance_id")) {
-                    final long allianceId = data.getLong("alliance_id");
+                final Long allianceId = corpData.get().getAllianceId();
+                if (null != allianceId) {
                     // 99003214 is Brave Collective
                     return 99003214L == allianceId;
                 } else {
@@ -270,17 +305,16 @@ public class ContractParser implements SchedulingConfigurer {
 
     private double calcBuybackRate(final long contractId, final String accessToken) {
         StringBuilder raw = new StringBuilder();
-        Optional<JsonNode> optional = requestService.getCorpContractItems(contractId, accessToken);
+        Optional<List<EsiContractItem>> optional = requestService.getCorpContractItems(contractId, accessToken);
         if (optional.isPresent()) {
-            JSONArray array = optional.get().getArray();
             // contracts with 0 items are worth 0 isk
-            if (array.length() == 0) {
+            if (optional.get().isEmpty()) {
                 return 0;
             }
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject item = array.getJSONObject(i);
-                long typeId = item.getLong("type_id");
-                long quantity = item.getLong("quantity");
+            typeService.getTypes(optional.get().stream().map(EsiContractItem::getTypeId).collect(Collectors.toSet()));
+            for (EsiContractItem item : optional.get()) {
+                long typeId = item.getTypeId();
+                long quantity = item.getQuantity();
                 String typeName = typeService.getNameByTypeId(typeId);
                 raw.append(typeName).append(" x").append(quantity).append('\n');
             }
@@ -318,16 +352,18 @@ public class ContractParser implements SchedulingConfigurer {
         return assigneeId == 99003214L;
     }
 
-    private Map<Integer, Integer> getItemsForContract(final long contractId, final String accessToken) {
+    private Map<Integer, Integer> getItemsForContract(final long contractId, final String accessToken,
+                                                      final CompletableFuture<Optional<List<EsiContractItem>>> prefetched) {
         final Map<Integer, Integer> result = new HashMap<>();
-        Optional<JsonNode> corpContractItems = requestService.getCorpContractItems(contractId, accessToken);
-        corpContractItems.ifPresent(jsonNode -> {
-            JSONArray jsonArray = jsonNode.getArray();
-            log.debug("Contract {} has {} items.", contractId, jsonArray.length());
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject jsonObject = jsonArray.getJSONObject(i);
-                int typeId = jsonObject.getInt("type_id");
-                int quantity = jsonObject.getInt("quantity");
+        // the future never completes exceptionally, failures are logged and mapped to an empty result
+        Optional<List<EsiContractItem>> corpContractItems = null != prefetched
+                                                            ? prefetched.join()
+                                                            : requestService.getCorpContractItems(contractId, accessToken);
+        corpContractItems.ifPresent(contractItems -> {
+            log.debug("Contract {} has {} items.", contractId, contractItems.size());
+            for (EsiContractItem item : contractItems) {
+                int typeId = (int) item.getTypeId();
+                int quantity = (int) item.getQuantity();
 
                 if (result.containsKey(typeId)) {
                     quantity += result.get(typeId);
@@ -353,6 +389,6 @@ public class ContractParser implements SchedulingConfigurer {
         taskRegistrar.setScheduler(taskExecutor());
         taskRegistrar.addTriggerTask(
             this::loadNonCompletedContracts,
-            triggerContext -> Date.from(requestService.getNextExecutionTime("corpContracts")));
+            triggerContext -> Date.from(requestService.getNextExecutionTime(EsiEndpoint.CORP_CONTRACTS)));
     }
 }
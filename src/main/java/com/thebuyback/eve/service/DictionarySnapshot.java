@@ -0,0 +1,349 @@
+package com.thebuyback.eve.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
+
+import com.thebuyback.eve.config.ApplicationProperties;
+import com.thebuyback.eve.domain.Type;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * A binary snapshot of the types, the group and category names and the resolved location names, so that they are
+ * known right after a restart. The file of the previous run is memory mapped at startup and lookups read the records
+ * in place, until the services have loaded their data from Mongo and ESI.
+ *
+ * The file starts with a magic number and the format version, followed by a section for types, groups, categories and
+ * locations. Each section holds the number of records, an index of ids and record offsets sorted by id, the length of
+ * the records and the records.
+ */
+@Component
+public class DictionarySnapshot {
+
+    private static final int MAGIC = 0x54424453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+    // where the name starts in the records of each section
+    private static final int[] NAME_OFFSETS = {Long.BYTES + 2 * Double.BYTES, Long.BYTES, Long.BYTES, 0};
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Path path;
+    private final Section types;
+    private final Section groups;
+    private final Section categories;
+    private final Section locations;
+
+    public DictionarySnapshot(final ApplicationProperties applicationProperties) {
+        path = Paths.get(applicationProperties.getSnapshot().getPath());
+        if (path.toAbsolutePath().startsWith(Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            log.warn("The snapshot {} is in the temporary directory, it may not survive a restart.", path);
+        }
+        final Section[] sections = readSections(map(path));
+        types = sections[0];
+        groups = sections[1];
+        categories = sections[2];
+        locations = sections[3];
+    }
+
+    private Section[] readSections(final ByteBuffer buffer) {
+        final Section[] sections = {Section.EMPTY, Section.EMPTY, Section.EMPTY, Section.EMPTY};
+        if (null == buffer) {
+            return sections;
+        }
+        try {
+            int start = HEADER_SIZE;
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = new Section(buffer, start);
+                sections[i].validate(NAME_OFFSETS[i]);
+                start = sections[i].end;
+            }
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            log.warn("Ignoring the snapshot {}, it is truncated or corrupt.", path);
+            return new Section[]{Section.EMPTY, Section.EMPTY, Section.EMPTY, Section.EMPTY};
+        }
+        log.info("Mapped the snapshot {} with {} types, {} groups, {} categories and {} locations.", path,
+                 sections[0].count, sections[1].count, sections[2].count, sections[3].count);
+        return sections;
+    }
+
+    /**
+     * @return the mapped file, or null if there is no valid snapshot
+     */
+    private ByteBuffer map(final Path path) {
+        if (!Files.exists(path)) {
+            log.info("There is no snapshot at {}.", path);
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                log.warn("Ignoring the snapshot {}, it has an unknown format.", path);
+                return null;
+            }
+            return buffer;
+        } catch (IOException e) {
+            log.warn("Failed to map the snapshot {}.", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the type, or null if it is not part of the snapshot. Group and category names are not stored with the
+     * types.
+     */
+    Type getType(final long typeId) {
+        final int record = types.find(typeId);
+        if (record < 0) {
+            return null;
+        }
+        final ByteBuffer buffer = types.buffer;
+        final long groupId = buffer.getLong(record);
+        final double volume = buffer.getDouble(record + Long.BYTES);
+        final double packagedVolume = buffer.getDouble(record + Long.BYTES + Double.BYTES);
+        return new Type(typeId, readString(buffer, record + Long.BYTES + 2 * Double.BYTES), groupId, null, null, null,
+                        volume, Double.isNaN(packagedVolume) ? null : packagedVolume);
+    }
+
+    void forEachTypeName(final ObjLongConsumer<String> consumer) {
+        for (int i = 0; i < types.count; i++) {
+            consumer.accept(readString(types.buffer, types.recordAt(i) + Long.BYTES + 2 * Double.BYTES), types.idAt(i));
+        }
+    }
+
+    int getTypeCount() {
+        return types.count;
+    }
+
+    HierarchyTable getGroups() {
+        return toTable(groups);
+    }
+
+    HierarchyTable getCategories() {
+        return toTable(categories);
+    }
+
+    private static HierarchyTable toTable(final Section section) {
+        final HierarchyTable.Builder table = new HierarchyTable.Builder();
+        for (int i = 0; i < section.count; i++) {
+            final int record = section.recordAt(i);
+            table.add(section.idAt(i), readString(section.buffer, record + Long.BYTES), section.buffer.getLong(record));
+        }
+        return table.build();
+    }
+
+    /**
+     * @return the name, or null if the location is not part of the snapshot
+     */
+    String getLocationName(final long locationId) {
+        final int record = locations.find(locationId);
+        return record < 0 ? null : readString(locations.buffer, record);
+    }
+
+    private static String readString(final ByteBuffer buffer, final int position) {
+        final byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(position + Short.BYTES);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a new snapshot. The file is replaced atomically, the snapshot that was mapped at startup stays readable.
+     * Rows without a name are left out.
+     */
+    void write(final Collection<Type> knownTypes, final HierarchyTable knownGroups,
+               final HierarchyTable knownCategories, final Map<Long, String> locationNames) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        final SortedMap<Long, byte[]> typeRecords = new TreeMap<>();
+        for (final Type type : knownTypes) {
+            if (null != type.getTypeName()) {
+                typeRecords.put(type.getTypeId(), record(record -> {
+                    record.writeLong(type.getGroupId());
+                    record.writeDouble(type.getVolume());
+                    record.writeDouble(null != type.getPackagedVolume() ? type.getPackagedVolume() : Double.NaN);
+                    writeString(record, type.getTypeName());
+                }));
+            }
+        }
+        writeSection(out, typeRecords);
+        writeSection(out, toRecords(knownGroups));
+        writeSection(out, toRecords(knownCategories));
+        final SortedMap<Long, byte[]> locationRecords = new TreeMap<>();
+        for (final Map.Entry<Long, String> location : locationNames.entrySet()) {
+            if (null != location.getValue()) {
+                locationRecords.put(location.getKey(), record(record -> writeString(record, location.getValue())));
+            }
+        }
+        writeSection(out, locationRecords);
+        out.flush();
+
+        final Path directory = Files.createDirectories(path.toAbsolutePath().getParent());
+        final Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info("Wrote the snapshot {} with {} types, {} groups, {} categories and {} locations ({} bytes).", path,
+                 typeRecords.size(), knownGroups.size(), knownCategories.size(), locationRecords.size(), bytes.size());
+    }
+
+    private static SortedMap<Long, byte[]> toRecords(final HierarchyTable table) {
+        final SortedMap<Long, byte[]> records = new TreeMap<>();
+        table.forEach((id, name, parent) -> {
+            if (null != name) {
+                records.put(id, record(record -> {
+                    record.writeLong(parent);
+                    writeString(record, name);
+                }));
+            }
+        });
+        return records;
+    }
+
+    private static void writeSection(final DataOutputStream out, final SortedMap<Long, byte[]> records)
+        throws IOException {
+        out.writeInt(records.size());
+        int offset = 0;
+        for (final Map.Entry<Long, byte[]> record : records.entrySet()) {
+            out.writeLong(record.getKey());
+            out.writeInt(offset);
+            offset += record.getValue().length;
+        }
+        out.writeInt(offset);
+        for (final byte[] record : records.values()) {
+            out.write(record);
+        }
+    }
+
+    private static byte[] record(final RecordWriter writer) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writer.write(out);
+            out.flush();
+        } catch (IOException e) {
+            // writing to a byte array doesn't fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("The name is too long for the snapshot: " + value.substring(0, 100));
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A section of the mapped file. All positions are absolute.
+     */
+    private static final class Section {
+
+        private static final Section EMPTY = new Section();
+
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int indexStart;
+        private final int dataStart;
+        private final int end;
+
+        private Section() {
+            buffer = null;
+            count = 0;
+            indexStart = 0;
+            dataStart = 0;
+            end = 0;
+        }
+
+        private Section(final ByteBuffer buffer, final int start) {
+            this.buffer = buffer;
+            count = buffer.getInt(start);
+            indexStart = start + Integer.BYTES;
+            final int dataLength = buffer.getInt(indexStart + count * INDEX_ENTRY_SIZE);
+            dataStart = indexStart + count * INDEX_ENTRY_SIZE + Integer.BYTES;
+            end = dataStart + dataLength;
+            if (count < 0 || dataLength < 0 || end > buffer.limit()) {
+                throw new IllegalStateException("The snapshot is truncated.");
+            }
+        }
+
+        /**
+         * Checks that the ids are sorted and that every record lies within the section, so that lookups can't fail
+         * on a corrupt file.
+         */
+        private void validate(final int nameOffset) {
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && idAt(i - 1) >= idAt(i)) {
+                    throw new IllegalStateException("The ids of the snapshot are not sorted.");
+                }
+                final int name = recordAt(i) + nameOffset;
+                if (recordAt(i) < dataStart || name + Short.BYTES > end
+                    || name + Short.BYTES + (buffer.getShort(name) & 0xFFFF) > end) {
+                    throw new IllegalStateException("A record of the snapshot is out of bounds.");
+                }
+            }
+        }
+
+        private long idAt(final int index) {
+            return buffer.getLong(indexStart + index * INDEX_ENTRY_SIZE);
+        }
+
+        private int recordAt(final int index) {
+            return dataStart + buffer.getInt(indexStart + index * INDEX_ENTRY_SIZE + Long.BYTES);
+        }
+
+        /**
+         * @return the position of the record, or -1 if the id is not part of the section
+         */
+        private int find(final long id) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final long middleId = idAt(middle);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return recordAt(middle);
+                }
+            }
+            return -1;
+        }
+    }
+}
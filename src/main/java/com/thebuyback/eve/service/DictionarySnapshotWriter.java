@@ -0,0 +1,44 @@
+package com.thebuyback.eve.service;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DictionarySnapshotWriter {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final DictionarySnapshot snapshot;
+    private final TypeService typeService;
+    private final TypeHierarchy hierarchy;
+    private final LocationService locationService;
+
+    public DictionarySnapshotWriter(final DictionarySnapshot snapshot, final TypeService typeService,
+                                    final TypeHierarchy hierarchy, final LocationService locationService) {
+        this.snapshot = snapshot;
+        this.typeService = typeService;
+        this.hierarchy = hierarchy;
+        this.locationService = locationService;
+    }
+
+    @Async
+    @Scheduled(initialDelay = 600_000L, fixedDelay = 3_600_000L) // 1 hour
+    public void writeSnapshot() {
+        if (!typeService.isPreloadComplete()) {
+            // the snapshot would lack all types that are only known from the previous snapshot
+            log.info("The types are still being loaded, skipping the snapshot.");
+            return;
+        }
+        try {
+            snapshot.write(typeService.getKnownTypes(), hierarchy.getGroups(), hierarchy.getCategories(),
+                           locationService.getLocationNames());
+        } catch (IOException e) {
+            log.warn("Failed to write the snapshot.", e);
+        }
+    }
+}
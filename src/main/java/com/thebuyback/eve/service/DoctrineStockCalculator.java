@@ -0,0 +1,123 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.thebuyback.eve.domain.enumeration.Availability;
+import com.thebuyback.eve.domain.stock.Doctrine;
+import com.thebuyback.eve.domain.stock.Fitting;
+import com.thebuyback.eve.domain.stock.FittingItem;
+import com.thebuyback.eve.domain.stock.StockDoctrine;
+import com.thebuyback.eve.domain.stock.StockItem;
+
+/**
+ * Evaluates the doctrines of one hub against its order book and the Jita order book.
+ *
+ * Stocked volume and prices are looked up once per type when the calculator is created, every doctrine is then
+ * evaluated against these quotes. The calculator doesn't touch the database, the caller loads fittings and books.
+ */
+public final class DoctrineStockCalculator {
+
+    private final Map<String, Fitting> fittings = new HashMap<>();
+    private final Map<Long, TypeQuote> quotes = new HashMap<>();
+
+    /**
+     * @param targetBook the order book of the hub
+     * @param jitaBook the order book of Jita, used as the price reference
+     * @param fittings all fittings that are referenced by the doctrines
+     * @param typeNames resolves a typeId to the name of the type
+     */
+    public DoctrineStockCalculator(final OrderBook targetBook, final OrderBook jitaBook,
+                                   final Collection<Fitting> fittings, final Function<Long, String> typeNames) {
+        for (final Fitting fitting : fittings) {
+            this.fittings.put(fitting.getId(), fitting);
+            for (final FittingItem item : fitting.getItems()) {
+                quotes.computeIfAbsent(item.getTypeId(), typeId -> new TypeQuote(typeNames.apply(typeId),
+                                                                                  targetBook.getSellVolume(typeId),
+                                                                                  targetBook.getBestAsk(typeId),
+                                                                                  jitaBook.getBestAsk(typeId)));
+            }
+        }
+    }
+
+    public List<StockDoctrine> calculate(final Collection<Doctrine> doctrines) {
+        final List<StockDoctrine> result = new ArrayList<>(doctrines.size());
+        doctrines.forEach(doctrine -> result.add(calculate(doctrine)));
+        return result;
+    }
+
+    public StockDoctrine calculate(final Doctrine doctrine) {
+        Availability lowestAvailability = Availability.WELL_PRICED;
+        final List<StockItem> stockItems = new ArrayList<>();
+        for (final Entry<Long, Long> itemQuantity : getTargetQuantities(doctrine).entrySet()) {
+            final long typeId = itemQuantity.getKey();
+            final long targetQuantity = itemQuantity.getValue();
+            final TypeQuote quote = quotes.get(typeId);
+            final Availability availability = getAvailability(quote.stockedQuantity, targetQuantity, quote.targetPrice,
+                                                              quote.jitaPrice);
+            if (availability != Availability.WELL_PRICED && lowestAvailability != Availability.MISSING) {
+                // this should reduce to overpriced, and once reduced to missing never be called again
+                lowestAvailability = availability;
+            }
+            stockItems.add(new StockItem(typeId, quote.typeName, availability, quote.stockedQuantity, targetQuantity));
+        }
+        return new StockDoctrine(lowestAvailability, doctrine.getName(), doctrine.getHub(), stockItems);
+    }
+
+    /**
+     * @return the summed up quantity per typeId over all fittings of the doctrine
+     */
+    public Map<Long, Long> getTargetQuantities(final Doctrine doctrine) {
+        final Map<Long, Long> itemQuantities = new LinkedHashMap<>();
+        doctrine.getFittingsQuantities().forEach((fittingId, fittingQuantity) -> {
+            final Fitting fitting = fittings.get(fittingId);
+            if (null == fitting) {
+                return;
+            }
+            for (final FittingItem item : fitting.getItems()) {
+                itemQuantities.merge(item.getTypeId(), item.getQuantity() * fittingQuantity, Long::sum);
+            }
+        });
+        return itemQuantities;
+    }
+
+    static Availability getAvailability(final long stockedQuantity, final long targetQuantity,
+                                        final Optional<Double> targetPrice, final Optional<Double> jitaPrice) {
+        if (stockedQuantity < targetQuantity || !targetPrice.isPresent() || !jitaPrice.isPresent()) {
+            return Availability.MISSING;
+        } else {
+            final double overpricedBorder = calcOverpricedBorder(jitaPrice.get());
+            if (overpricedBorder < targetPrice.get()) {
+                return Availability.OVER_PRICED;
+            } else {
+                return Availability.WELL_PRICED;
+            }
+        }
+    }
+
+    private static double calcOverpricedBorder(final Double price) {
+        return price * (1 + (8 / (Math.log(price) + 3)));
+    }
+
+    private static final class TypeQuote {
+        private final String typeName;
+        private final long stockedQuantity;
+        private final Optional<Double> targetPrice;
+        private final Optional<Double> jitaPrice;
+
+        private TypeQuote(final String typeName, final long stockedQuantity, final Optional<Double> targetPrice,
+                          final Optional<Double> jitaPrice) {
+            this.typeName = typeName;
+            this.stockedQuantity = stockedQuantity;
+            this.targetPrice = targetPrice;
+            this.jitaPrice = jitaPrice;
+        }
+    }
+}
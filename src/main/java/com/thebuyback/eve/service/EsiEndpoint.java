@@ -0,0 +1,41 @@
+package com.thebuyback.eve.service;
+
+/**
+ * The ESI endpoints that are called by the application, with the priority of the jobs that call them.
+ */
+public enum EsiEndpoint {
+
+    CORP_CONTRACTS(Priority.HIGH),
+    CORP_CONTRACT_ITEMS(Priority.HIGH),
+    MAIL(Priority.HIGH),
+    CORPORATION_INFO(Priority.NORMAL),
+    NAMES(Priority.NORMAL),
+    TYPE_INFO(Priority.NORMAL),
+    SEARCH(Priority.NORMAL),
+    MARKET_ORDERS(Priority.NORMAL),
+    WALLET(Priority.NORMAL),
+    CORP_ORDERS(Priority.NORMAL),
+    GROUP_INFO(Priority.LOW),
+    CATEGORY_INFO(Priority.LOW),
+    CATEGORIES(Priority.LOW),
+    CORP_ASSETS(Priority.LOW),
+    STRUCTURE_INFO(Priority.LOW),
+    STATION_INFO(Priority.LOW);
+
+    private final Priority priority;
+
+    EsiEndpoint(final Priority priority) {
+        this.priority = priority;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Lower priorities are paused first when the error budget or the request rate runs low.
+     */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+}
@@ -0,0 +1,82 @@
+package com.thebuyback.eve.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps track of each ESI endpoint: until when its last response may be cached, and a circuit breaker that stops
+ * requests to the endpoint while it keeps failing. Failures of one endpoint don't block the others.
+ */
+@Service
+public class EsiEndpointRegistry {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Duration OPEN_DURATION = Duration.ofMinutes(5);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<EsiEndpoint, Instant> expiries = new ConcurrentHashMap<>();
+    private final Map<EsiEndpoint, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public EsiEndpointRegistry() {
+        for (final EsiEndpoint endpoint : EsiEndpoint.values()) {
+            breakers.put(endpoint, new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION));
+        }
+    }
+
+    public boolean allowRequest(final EsiEndpoint endpoint) {
+        if (!breakers.get(endpoint).allowRequest()) {
+            log.info("Skipping {} while its circuit breaker is open.", endpoint);
+            return false;
+        }
+        return true;
+    }
+
+    public void cancelRequest(final EsiEndpoint endpoint) {
+        breakers.get(endpoint).cancelRequest();
+    }
+
+    public void recordSuccess(final EsiEndpoint endpoint) {
+        breakers.get(endpoint).recordSuccess();
+    }
+
+    public void recordFailure(final EsiEndpoint endpoint) {
+        final CircuitBreaker breaker = breakers.get(endpoint);
+        breaker.recordFailure();
+        if (breaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit breaker of {} is open until {}.", endpoint, breaker.getOpenUntil());
+        }
+    }
+
+    public void setExpiry(final EsiEndpoint endpoint, final Instant expires) {
+        expiries.put(endpoint, expires);
+    }
+
+    public Optional<Instant> getExpiry(final EsiEndpoint endpoint) {
+        return Optional.ofNullable(expiries.get(endpoint));
+    }
+
+    public CircuitBreaker getBreaker(final EsiEndpoint endpoint) {
+        return breakers.get(endpoint);
+    }
+
+    /**
+     * @return when a scheduler should request the endpoint again: after the breaker closes or the cached response
+     * expires, or in a minute if neither is known
+     */
+    public Instant getNextExecutionTime(final EsiEndpoint endpoint) {
+        final Instant openUntil = breakers.get(endpoint).getOpenUntil();
+        if (null != openUntil) {
+            return openUntil;
+        }
+        return getExpiry(endpoint).orElseGet(() -> Instant.now().plus(DEFAULT_INTERVAL));
+    }
+}
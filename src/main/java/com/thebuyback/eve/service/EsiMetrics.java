@@ -0,0 +1,91 @@
+package com.thebuyback.eve.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Records the requests to each ESI endpoint in the application's metric registry, so that they show up on the
+ * metrics page and in JMX: the latency, the status codes, the bytes received, the retries and the time spent waiting
+ * for the rate governor.
+ */
+@Service
+public class EsiMetrics {
+
+    private final MetricRegistry metricRegistry;
+    private final Map<EsiEndpoint, EndpointMetrics> endpoints = new EnumMap<>(EsiEndpoint.class);
+
+    public EsiMetrics(final MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+        for (final EsiEndpoint endpoint : EsiEndpoint.values()) {
+            endpoints.put(endpoint, new EndpointMetrics(metricRegistry, metricName(endpoint)));
+        }
+    }
+
+    /**
+     * @return a context that records the latency of the request when it is stopped
+     */
+    public Timer.Context time(final EsiEndpoint endpoint) {
+        return endpoints.get(endpoint).latency.time();
+    }
+
+    public void recordStatus(final EsiEndpoint endpoint, final int status) {
+        metricRegistry.counter(name(EsiMetrics.class, metricName(endpoint), "status", String.valueOf(status))).inc();
+    }
+
+    /**
+     * Requests that failed without a response, e.g. because the connection was reset.
+     */
+    public void recordFailure(final EsiEndpoint endpoint) {
+        endpoints.get(endpoint).failures.inc();
+    }
+
+    public void recordBytes(final EsiEndpoint endpoint, final long bytes) {
+        endpoints.get(endpoint).bytes.update(bytes);
+    }
+
+    public void recordRetry(final EsiEndpoint endpoint) {
+        endpoints.get(endpoint).retries.inc();
+    }
+
+    public void recordBackoff(final EsiEndpoint endpoint, final long nanos) {
+        endpoints.get(endpoint).backoff.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the endpoint in camel case, e.g. corpContracts for CORP_CONTRACTS
+     */
+    static String metricName(final EsiEndpoint endpoint) {
+        final StringBuilder result = new StringBuilder();
+        for (final String part : endpoint.name().toLowerCase().split("_")) {
+            result.append(result.length() == 0 ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+        }
+        return result.toString();
+    }
+
+    private static final class EndpointMetrics {
+
+        private final Timer latency;
+        private final Histogram bytes;
+        private final Counter failures;
+        private final Counter retries;
+        private final Timer backoff;
+
+        private EndpointMetrics(final MetricRegistry metricRegistry, final String endpoint) {
+            latency = metricRegistry.timer(name(EsiMetrics.class, endpoint, "latency"));
+            bytes = metricRegistry.histogram(name(EsiMetrics.class, endpoint, "bytes"));
+            failures = metricRegistry.counter(name(EsiMetrics.class, endpoint, "failures"));
+            retries = metricRegistry.counter(name(EsiMetrics.class, endpoint, "retries"));
+            backoff = metricRegistry.timer(name(EsiMetrics.class, endpoint, "backoff"));
+        }
+    }
+}
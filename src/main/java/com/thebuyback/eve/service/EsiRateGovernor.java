@@ -0,0 +1,273 @@
+package com.thebuyback.eve.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.thebuyback.eve.service.EsiEndpoint.Priority;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Throttles all requests to ESI, no matter which scheduler sends them.
+ *
+ * Every request takes a permit from a token bucket. Lower priorities may only take a permit while enough permits are
+ * left for higher priorities. On top of that ESI bans clients that exceed the error limit, so the remaining error
+ * budget is taken from the X-ESI-Error-Limit-* headers and lower priorities are paused until the error window resets
+ * before the budget is used up.
+ *
+ * Asynchronous requests wait in a queue that is ordered by priority, so a backlog of low priority requests never
+ * delays a high priority one.
+ */
+@Service
+public class EsiRateGovernor {
+
+    static final int ERROR_LIMIT = 100;
+    static final long PAUSED = -1L;
+    private static final double DEFAULT_PERMITS_PER_SECOND = 50;
+    private static final double DEFAULT_CAPACITY = 100;
+    private static final long DEFAULT_ERROR_WINDOW_SECONDS = 60L;
+    private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double permits;
+    private long lastRefill = System.nanoTime();
+    private volatile ErrorBudget errorBudget = new ErrorBudget(ERROR_LIMIT, Instant.EPOCH);
+    // asynchronous requests that wait for a permit, they don't hold a thread while waiting
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "esi-permits");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> nextDrain;
+    private long waiterSequence;
+
+    public EsiRateGovernor() {
+        this(DEFAULT_PERMITS_PER_SECOND, DEFAULT_CAPACITY);
+    }
+
+    EsiRateGovernor(final double permitsPerSecond, final double capacity) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.permits = capacity;
+    }
+
+    /**
+     * Blocks until a request to the endpoint may be sent.
+     *
+     * @return false if requests of the endpoint's priority are paused, because the error budget is running low
+     */
+    public boolean acquire(final EsiEndpoint endpoint) {
+        while (true) {
+            final long waitNanos = tryAcquire(endpoint);
+            if (waitNanos == 0L) {
+                return true;
+            }
+            if (waitNanos == PAUSED) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The non-blocking variant of {@link #acquire(EsiEndpoint)}. Waiting requests are granted permits by priority,
+     * and in the order they asked within a priority.
+     *
+     * @return completes with false if requests of the endpoint's priority are paused
+     */
+    public CompletableFuture<Boolean> acquireAsync(final EsiEndpoint endpoint) {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        synchronized (this) {
+            waiters.add(new Waiter(endpoint, waiterSequence++, result));
+        }
+        drainWaiters();
+        return result;
+    }
+
+    /**
+     * Grants permits to the waiters until the first one has to wait, and schedules the next attempt for that one.
+     * Lower priorities keep a larger reserve, so none of the waiters behind it could take a permit either.
+     */
+    private void drainWaiters() {
+        final List<CompletableFuture<Boolean>> granted = new ArrayList<>();
+        final List<CompletableFuture<Boolean>> refused = new ArrayList<>();
+        synchronized (this) {
+            if (null != nextDrain) {
+                nextDrain.cancel(false);
+                nextDrain = null;
+            }
+            while (!waiters.isEmpty()) {
+                final Waiter waiter = waiters.peek();
+                final long waitNanos = tryAcquire(waiter.endpoint);
+                if (waitNanos > 0L) {
+                    nextDrain = scheduler.schedule(this::drainWaiters, waitNanos, TimeUnit.NANOSECONDS);
+                    break;
+                }
+                waiters.poll();
+                (waitNanos == 0L ? granted : refused).add(waiter.result);
+            }
+        }
+        // the callers continue on this thread, so the futures are completed outside of the lock
+        granted.forEach(result -> result.complete(true));
+        refused.forEach(result -> result.complete(false));
+    }
+
+    /**
+     * Takes a permit if one is available for the endpoint's priority.
+     *
+     * @return 0 if a permit was taken, {@link #PAUSED} if requests of the endpoint's priority are paused, and the
+     * nanoseconds until a permit is available otherwise
+     */
+    private long tryAcquire(final EsiEndpoint endpoint) {
+        final Priority priority = endpoint.getPriority();
+        if (isPaused(priority)) {
+            log.info("Skipping {} until the ESI error limit resets at {}.", endpoint, errorBudget.reset);
+            return PAUSED;
+        }
+        final double reserve = capacity * getReservedShare(priority);
+        synchronized (this) {
+            refill();
+            if (permits - 1 >= reserve) {
+                permits--;
+                return 0L;
+            }
+            return Math.max((long) ((reserve + 1 - permits) / permitsPerNano), MIN_WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Updates the error budget from the headers of an ESI response.
+     *
+     * @param remain the value of X-ESI-Error-Limit-Remain, may be null
+     * @param reset the value of X-ESI-Error-Limit-Reset in seconds, may be null
+     */
+    public void onResponse(final int status, final String remain, final String reset) {
+        final Integer remainingErrors = parseInt(remain);
+        final Integer resetSeconds = parseInt(reset);
+        final Instant resetAt = Instant.now().plusSeconds(null != resetSeconds ? resetSeconds
+                                                                               : DEFAULT_ERROR_WINDOW_SECONDS);
+        if (status == 420) {
+            log.warn("ESI error limit reached, pausing all requests until {}.", resetAt);
+            errorBudget = new ErrorBudget(0, resetAt);
+        } else if (null != remainingErrors) {
+            if (remainingErrors < getErrorFloor(Priority.LOW) && remainingErrors < errorBudget.remain) {
+                log.warn("{} ESI errors left until {}.", remainingErrors, resetAt);
+            }
+            errorBudget = new ErrorBudget(remainingErrors, resetAt);
+        }
+    }
+
+    public boolean isPaused(final Priority priority) {
+        final ErrorBudget budget = errorBudget;
+        return budget.reset.isAfter(Instant.now()) && budget.remain <= getErrorFloor(priority);
+    }
+
+    /**
+     * @return the errors ESI still tolerates in the current window, the full limit once the window has passed
+     */
+    public int getErrorLimitRemain() {
+        final ErrorBudget budget = errorBudget;
+        return budget.reset.isAfter(Instant.now()) ? budget.remain : ERROR_LIMIT;
+    }
+
+    public Instant getErrorLimitReset() {
+        return errorBudget.reset;
+    }
+
+    public synchronized double getAvailablePermits() {
+        refill();
+        return permits;
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        permits = Math.min(capacity, permits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+
+    private static int getErrorFloor(final Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return 5;
+            case NORMAL:
+                return 20;
+            default:
+                return 50;
+        }
+    }
+
+    private static double getReservedShare(final Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return 0;
+            case NORMAL:
+                return 0.2;
+            default:
+                return 0.5;
+        }
+    }
+
+    private static Integer parseInt(final String value) {
+        if (null == value) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        private final EsiEndpoint endpoint;
+        private final long sequence;
+        private final CompletableFuture<Boolean> result;
+
+        private Waiter(final EsiEndpoint endpoint, final long sequence, final CompletableFuture<Boolean> result) {
+            this.endpoint = endpoint;
+            this.sequence = sequence;
+            this.result = result;
+        }
+
+        @Override
+        public int compareTo(final Waiter other) {
+            final int byPriority = endpoint.getPriority().compareTo(other.endpoint.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class ErrorBudget {
+        private final int remain;
+        private final Instant reset;
+
+        private ErrorBudget(final int remain, final Instant reset) {
+            this.remain = remain;
+            this.reset = reset;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.thebuyback.eve.service;
+
+/**
+ * The body of a successful ESI GET request, either freshly downloaded or reused from the {@link EsiResponseCache}.
+ */
+final class EsiResponse {
+
+    private final byte[] body;
+    private final int pageCount;
+
+    EsiResponse(final byte[] body, final int pageCount) {
+        this.body = body;
+        this.pageCount = pageCount;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return the value of the X-Pages header, or 0 if there was none
+     */
+    int getPageCount() {
+        return pageCount;
+    }
+}
@@ -0,0 +1,134 @@
+package com.thebuyback.eve.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.thebuyback.eve.domain.EsiCacheEntry;
+import com.thebuyback.eve.repository.EsiCacheEntryRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the last body and ETag of ESI GET requests, so that they can be sent as conditional requests and the body
+ * can be reused when ESI answers with 304 Not Modified.
+ */
+@Service
+public class EsiResponseCache {
+
+    private static final Pattern TOKEN_PARAMETER = Pattern.compile("([?&])token=[^&]*&?");
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final EsiCacheEntryRepository repository;
+    private final Meter hits;
+    private final Meter misses;
+    private final Counter bytesSaved;
+
+    public EsiResponseCache(final EsiCacheEntryRepository repository, final MetricRegistry metricRegistry) {
+        this.repository = repository;
+        hits = metricRegistry.meter(name(EsiResponseCache.class, "hits"));
+        misses = metricRegistry.meter(name(EsiResponseCache.class, "misses"));
+        bytesSaved = metricRegistry.counter(name(EsiResponseCache.class, "bytes-saved"));
+        metricRegistry.register(name(EsiResponseCache.class, "hit-ratio"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+            }
+        });
+    }
+
+    public Optional<EsiCacheEntry> get(final String url) {
+        return Optional.ofNullable(repository.findOne(toKey(url)));
+    }
+
+    public void put(final String url, final String etag, final Instant expires, final int pageCount,
+                    final byte[] body) {
+        try {
+            repository.save(new EsiCacheEntry(toKey(url), etag, expires, pageCount, body.length, compress(body),
+                                              new Date()));
+        } catch (IOException e) {
+            log.warn("Failed to cache the response of {}.", toKey(url), e);
+        }
+    }
+
+    /**
+     * Stores the entry again, e.g. with a new expiry after a 304 response. This also restarts its retention.
+     */
+    public void refresh(final EsiCacheEntry entry) {
+        entry.setStoredAt(new Date());
+        repository.save(entry);
+    }
+
+    public void evict(final String url) {
+        repository.delete(toKey(url));
+    }
+
+    /**
+     * @return the uncompressed body of the entry, or null if it can't be read
+     */
+    public byte[] getBody(final EsiCacheEntry entry) {
+        try {
+            return decompress(entry.getBody(), entry.getSize());
+        } catch (IOException e) {
+            log.warn("Failed to read the cached response of {}.", entry.getKey(), e);
+            return null;
+        }
+    }
+
+    /**
+     * A response was served from the cache instead of downloading the body again.
+     */
+    public void recordHit(final int bytes) {
+        hits.mark();
+        bytesSaved.inc(bytes);
+    }
+
+    public void recordMiss() {
+        misses.mark();
+    }
+
+    /**
+     * Access tokens expire every 20 minutes, so they are not part of the key.
+     */
+    static String toKey(final String url) {
+        final String key = TOKEN_PARAMETER.matcher(url).replaceAll("$1");
+        return key.endsWith("?") || key.endsWith("&") ? key.substring(0, key.length() - 1) : key;
+    }
+
+    private static byte[] compress(final byte[] body) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(final byte[] body, final int size) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
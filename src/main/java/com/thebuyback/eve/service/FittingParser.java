@@ -50,10 +50,10 @@ public class FittingParser {
             quantities.put(typeName, quantities.get(typeName) + quantity);
         });
 
-        final List<FittingItem> items = quantities.entrySet().stream().map(e -> {
-            final long typeId = typeService.getTypeIdByName(e.getKey());
-            return new FittingItem(typeId, e.getValue());
-        }).collect(Collectors.toList());
+        final Map<String, Long> typeIds = typeService.resolveNames(quantities.keySet());
+        final List<FittingItem> items = quantities.entrySet().stream()
+                                                  .map(e -> new FittingItem(typeIds.get(e.getKey()), e.getValue()))
+                                                  .collect(Collectors.toList());
 
         if (null == fittingName.get()) {
             throw new RuntimeException("Fitting name was null: " + text);
@@ -0,0 +1,84 @@
+package com.thebuyback.eve.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable table from ids to a name and a parent id, e.g. from groups to their name and category. The rows are
+ * kept in three arrays sorted by id, a lookup is a binary search.
+ */
+final class HierarchyTable {
+
+    static final HierarchyTable EMPTY = new Builder().build();
+
+    private final long[] ids;
+    private final String[] names;
+    private final long[] parents;
+
+    private HierarchyTable(final long[] ids, final String[] names, final long[] parents) {
+        this.ids = ids;
+        this.names = names;
+        this.parents = parents;
+    }
+
+    /**
+     * @return the name, or null if the id is unknown
+     */
+    String getName(final long id) {
+        final int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? null : names[index];
+    }
+
+    /**
+     * @return the parent id, or null if the id is unknown
+     */
+    Long getParent(final long id) {
+        final int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? null : parents[index];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    void forEach(final RowConsumer consumer) {
+        for (int i = 0; i < ids.length; i++) {
+            consumer.accept(ids[i], names[i], parents[i]);
+        }
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(long id, String name, long parent);
+    }
+
+    static final class Builder {
+
+        private final SortedMap<Long, String> names = new TreeMap<>();
+        private final Map<Long, Long> parents = new HashMap<>();
+
+        Builder add(final long id, final String name, final long parent) {
+            names.put(id, name);
+            parents.put(id, parent);
+            return this;
+        }
+
+        HierarchyTable build() {
+            final long[] ids = new long[names.size()];
+            final String[] sortedNames = new String[names.size()];
+            final long[] sortedParents = new long[names.size()];
+            int index = 0;
+            for (final Entry<Long, String> row : names.entrySet()) {
+                ids[index] = row.getKey();
+                sortedNames[index] = row.getValue();
+                sortedParents[index] = parents.get(row.getKey());
+                index++;
+            }
+            return new HierarchyTable(ids, sortedNames, sortedParents);
+        }
+    }
+}
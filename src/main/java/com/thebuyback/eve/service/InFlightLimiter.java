@@ -0,0 +1,76 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Starts asynchronous calls as long as fewer than the configured number are running, and queues them otherwise.
+ * Callers never block, a queued call is started as soon as a running one completes.
+ */
+final class InFlightLimiter {
+
+    private final int maxInFlight;
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private int inFlight;
+
+    InFlightLimiter(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive, was " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> call) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable start = () -> {
+            final CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                release();
+                return;
+            }
+            future.whenComplete((value, error) -> {
+                release();
+                if (null != error) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        synchronized (this) {
+            if (inFlight >= maxInFlight) {
+                pending.add(start);
+                return result;
+            }
+            inFlight++;
+        }
+        start.run();
+        return result;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getPending() {
+        return pending.size();
+    }
+
+    private void release() {
+        final Runnable next;
+        synchronized (this) {
+            next = pending.poll();
+            if (null == next) {
+                inFlight--;
+                return;
+            }
+        }
+        // the permit is handed over to the next call
+        next.run();
+    }
+}
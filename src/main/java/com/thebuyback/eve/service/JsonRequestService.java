@@ -1,6 +1,8 @@
 package com.thebuyback.eve.service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.time.Instant;
@@ -8,27 +10,64 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import static java.util.Collections.singletonList;
+import static com.codahale.metrics.MetricRegistry.name;
 
+import javax.annotation.PreDestroy;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.ObjectMapper;
 import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.async.Callback;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.body.MultipartBody;
 import com.mashape.unirest.request.body.RequestBodyEntity;
+import com.thebuyback.eve.config.ApplicationProperties;
+import com.thebuyback.eve.domain.EsiCacheEntry;
 import com.thebuyback.eve.domain.Token;
+import com.thebuyback.eve.service.AccessTokenCache.AccessToken;
+import com.thebuyback.eve.service.dto.esi.EsiAsset;
+import com.thebuyback.eve.service.dto.esi.EsiCategory;
+import com.thebuyback.eve.service.dto.esi.EsiContract;
+import com.thebuyback.eve.service.dto.esi.EsiContractItem;
+import com.thebuyback.eve.service.dto.esi.EsiCorpOrder;
+import com.thebuyback.eve.service.dto.esi.EsiCorporation;
+import com.thebuyback.eve.service.dto.esi.EsiGroup;
+import com.thebuyback.eve.service.dto.esi.EsiName;
+import com.thebuyback.eve.service.dto.esi.EsiSearchResult;
+import com.thebuyback.eve.service.dto.esi.EsiStation;
+import com.thebuyback.eve.service.dto.esi.EsiStructure;
+import com.thebuyback.eve.service.dto.esi.EsiType;
+import com.thebuyback.eve.service.dto.esi.EsiWalletDivision;
 
 import static com.thebuyback.eve.web.rest.ContractsResource.THE_BUYBACK;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,21 +82,74 @@ public class JsonRequestService {
     private static final String BODY_TEMPLATE = "{\"recipients\": [{\"recipient_type\": \"character\",\"recipient_id\": %d}, {\"recipient_type\": \"corporation\",\"recipient_id\": 98503372}],\"subject\": \"The Buyback - %s\",\"body\": \"%s\"}";
     private static final long CORPORATION = 98503372L;
     private static final long MAIL_CHAR = 93475128L;
-    private static final String ESI_BASE_URL = "https://esi.evetech.net";
-    private static final String BACK_OFF = "backOff";
+    private static final String X_PAGES = "X-Pages";
+    private static final String ERROR_LIMIT_REMAIN = "X-ESI-Error-Limit-Remain";
+    private static final String ERROR_LIMIT_RESET = "X-ESI-Error-Limit-Reset";
+    private static final Pattern TOKEN_PARAMETER = Pattern.compile("[?&]token=([^&]+)");
+    // ESI allows a lot of parallel requests, but every error counts against a shared error limit
+    private static final int MAX_IN_FLIGHT = 50;
+    private static final int CALLBACK_THREADS = 4;
+    // the sso hands out tokens for 20 minutes
+    private static final long DEFAULT_TOKEN_LIFETIME = 1200L;
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final Map<String, String> defaultHeaders;
-    private final Map<String, Instant> esiCacheExpiries = new HashMap<>();
+    private final String esiBaseUrl;
+    private final String loginUrl;
+    private final EsiResponseCache responseCache;
+    private final AccessTokenCache accessTokenCache;
+    private final EsiRateGovernor governor;
+    private final EsiEndpointRegistry endpointRegistry;
+    private final EsiMetrics metrics;
+    private final InFlightLimiter inFlightLimiter = new InFlightLimiter(MAX_IN_FLIGHT);
+    private final ExecutorService callbackExecutor = Executors.newFixedThreadPool(CALLBACK_THREADS);
+    // keyed by the url without the token
+    private final SingleFlight<String, Optional<EsiResponse>> gets = new SingleFlight<>();
+
+    // ESI names its fields in snake case and adds fields without a version bump
+    static final com.fasterxml.jackson.databind.ObjectMapper ESI_MAPPER =
+        new com.fasterxml.jackson.databind.ObjectMapper()
+            .registerModule(new AfterburnerModule())
+            .registerModule(new JavaTimeModule())
+            .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final JavaType CONTRACT_LIST = listOf(EsiContract.class);
+    private static final JavaType CONTRACT_ITEM_LIST = listOf(EsiContractItem.class);
+    private static final JavaType ASSET_LIST = listOf(EsiAsset.class);
+    private static final JavaType CORP_ORDER_LIST = listOf(EsiCorpOrder.class);
+    private static final JavaType WALLET_DIVISION_LIST = listOf(EsiWalletDivision.class);
+    private static final JavaType NAME_LIST = listOf(EsiName.class);
+    private static final JavaType ID_LIST = listOf(Long.class);
+    private static final JavaType ESI_TYPE = typeOf(EsiType.class);
+    private static final JavaType ESI_GROUP = typeOf(EsiGroup.class);
+    private static final JavaType ESI_CATEGORY = typeOf(EsiCategory.class);
+    private static final JavaType ESI_STRUCTURE = typeOf(EsiStructure.class);
+    private static final JavaType ESI_STATION = typeOf(EsiStation.class);
+    private static final JavaType ESI_CORPORATION = typeOf(EsiCorporation.class);
+    private static final JavaType ESI_SEARCH_RESULT = typeOf(EsiSearchResult.class);
 
     private static final DateTimeFormatter EXPIRY_FORMATTER = new DateTimeFormatterBuilder()
         .appendPattern("EEE, dd MMM yyyy HH:mm:ss zzz")
         .toFormatter()
         .withZone(ZoneOffset.UTC);
 
-    public JsonRequestService() {
+    public JsonRequestService(final EsiResponseCache responseCache, final AccessTokenCache accessTokenCache,
+                              final EsiRateGovernor governor, final EsiEndpointRegistry endpointRegistry,
+                              final EsiMetrics metrics, final MetricRegistry metricRegistry,
+                              final ApplicationProperties applicationProperties) {
+        this.responseCache = responseCache;
+        this.accessTokenCache = accessTokenCache;
+        this.governor = governor;
+        this.endpointRegistry = endpointRegistry;
+        this.metrics = metrics;
+        esiBaseUrl = applicationProperties.getEsi().getBaseUrl();
+        loginUrl = applicationProperties.getEsi().getLoginUrl();
+        metricRegistry.register(name(JsonRequestService.class, "coalesced-gets"),
+                                (Gauge<Long>) gets::getCoalescedCount);
         defaultHeaders = new HashMap<>();
         defaultHeaders.put("X-User-Agent", USER_AGENT);
         defaultHeaders.put("Accept-Encoding", "gzip");
+        // esi is a single route, the default of 20 connections per route would cap the async requests
+        Unirest.setConcurrency(MAX_IN_FLIGHT * 2, MAX_IN_FLIGHT);
 
         // Only one time
         Unirest.setObjectMapper(new ObjectMapper() {
@@ -82,26 +174,39 @@ public class JsonRequestService {
         });
     }
 
-    public Instant getNextExecutionTime(final String useCase) {
-        if (esiCacheExpiries.containsKey(BACK_OFF) && esiCacheExpiries.get(BACK_OFF).isAfter(Instant.now())) {
-            return esiCacheExpiries.get(BACK_OFF);
+    /**
+     * @return false while requests to the endpoint are skipped by the governor or its circuit breaker
+     */
+    boolean isAvailable(final EsiEndpoint endpoint) {
+        return !governor.isPaused(endpoint.getPriority())
+               && endpointRegistry.getBreaker(endpoint).getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    public Instant getNextExecutionTime(final EsiEndpoint endpoint) {
+        if (governor.isPaused(endpoint.getPriority())) {
+            return governor.getErrorLimitReset();
         }
-        return esiCacheExpiries.containsKey(useCase) ? esiCacheExpiries.get(useCase) : Instant.now().plusSeconds(60);
+        return endpointRegistry.getNextExecutionTime(endpoint);
     }
 
     public String getAccessToken(final Token token) throws UnirestException {
-        HttpResponse<JsonNode> response = Unirest.post("https://login.eveonline.com/oauth/token")
+        return accessTokenCache.getAccessToken(token.getClientId(), () -> refreshAccessToken(token));
+    }
+
+    private AccessToken refreshAccessToken(final Token token) throws UnirestException {
+        HttpResponse<JsonNode> response = Unirest.post(loginUrl + "/oauth/token")
                                                  .headers(defaultHeaders)
                                                  .field("grant_type","refresh_token")
                                                  .field("refresh_token", token.getRefreshToken())
                                                  .basicAuth(token.getClientId(), token.getClientSecret())
                                                  .asJson();
         final JSONObject object = response.getBody().getObject();
-        return object.getString("access_token");
+        return new AccessToken(object.getString("access_token"),
+                               Instant.now().plusSeconds(object.optLong("expires_in", DEFAULT_TOKEN_LIFETIME)));
     }
 
     public Optional<JsonNode> getAccessToken(final String clientId, final String clientSecret, final String code) {
-        String url = "https://login.eveonline.com/oauth/token";
+        String url = loginUrl + "/oauth/token";
         Map<String, String> headers = new HashMap<>();
         headers.put("Content-Type", "application/x-www-form-urlencoded");
         Map<String, Object> fields = new HashMap<>();
@@ -114,7 +219,7 @@ public class JsonRequestService {
     }
 
     public Optional<JsonNode> getUserDetails(final String accessToken) {
-        String url = "https://login.eveonline.com/oauth/verify";
+        String url = loginUrl + "/oauth/verify";
         Map<String, String> headers = new HashMap<>();
         headers.put("Authorization", "Bearer " + accessToken);
 
@@ -123,20 +228,377 @@ public class JsonRequestService {
         return executeRequest(getRequest);
     }
 
-    private Optional<JsonNode> justGet(final String url, final String cachingUseCase) {
-        return executeRequest(get(url, null), cachingUseCase);
+    private <T> Optional<T> justGet(final EsiEndpoint endpoint, final String url, final JavaType type) {
+        return getCached(endpoint, url).flatMap(response -> read(url, response, type));
     }
 
-    Optional<JsonNode> executeRequest(final BaseRequest request) {
-        return executeRequest(request, null);
+    private <T> CompletableFuture<Optional<T>> justGetAsync(final EsiEndpoint endpoint, final String url,
+                                                            final JavaType type) {
+        return getCachedAsync(endpoint, url).thenApply(response -> response.flatMap(esiResponse -> read(url, esiResponse,
+                                                                                                        type)));
     }
 
-    Optional<JsonNode> executeRequest(final BaseRequest request, final String cachingUserCase) {
+    private <T> Optional<T> read(final String url, final EsiResponse response, final JavaType type) {
+        try {
+            return Optional.of(ESI_MAPPER.readValue(response.getBody(), type));
+        } catch (IOException e) {
+            log.error("Failed to read the response of url={}", url, e);
+            return Optional.empty();
+        }
+    }
+
+    static JavaType listOf(final Class<?> elementType) {
+        return ESI_MAPPER.getTypeFactory().constructCollectionType(List.class, elementType);
+    }
+
+    private static JavaType typeOf(final Class<?> type) {
+        return ESI_MAPPER.getTypeFactory().constructType(type);
+    }
+
+    /**
+     * Sends a conditional GET request. The cached body is reused without a request while it hasn't expired, and if
+     * ESI answers with 304 Not Modified. Only requests that are actually sent count against the rate governor.
+     * Concurrent requests for the same url share one response.
+     */
+    Optional<EsiResponse> getCached(final EsiEndpoint endpoint, final String url) {
+        return gets.execute(EsiResponseCache.toKey(url), () -> requestCached(endpoint, url));
+    }
+
+    private Optional<EsiResponse> requestCached(final EsiEndpoint endpoint, final String url) {
+        final Optional<EsiCacheEntry> entry = responseCache.get(url);
+        final Optional<EsiResponse> fresh = getUnexpired(entry);
+        if (fresh.isPresent()) {
+            return fresh;
+        }
+        if (!acquire(endpoint)) {
+            return Optional.empty();
+        }
         try {
-            if (esiCacheExpiries.containsKey(BACK_OFF) && esiCacheExpiries.get(BACK_OFF).isAfter(Instant.now())) {
-                log.info("Waiting until backOff ends.");
+            return handleResponse(endpoint, url, entry, sendWithRetry(endpoint, url, entry));
+        } catch (UnirestException | IOException e) {
+            endpointRegistry.recordFailure(endpoint);
+            log.error(UNIREST_EXCEPTION, url, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The non-blocking variant of {@link #getCached(EsiEndpoint, String)}. At most {@value #MAX_IN_FLIGHT} requests
+     * are running at the same time, further requests are queued.
+     */
+    CompletableFuture<Optional<EsiResponse>> getCachedAsync(final EsiEndpoint endpoint, final String url) {
+        return gets.executeAsync(EsiResponseCache.toKey(url), () -> requestCachedAsync(endpoint, url));
+    }
+
+    private CompletableFuture<Optional<EsiResponse>> requestCachedAsync(final EsiEndpoint endpoint, final String url) {
+        return CompletableFuture
+            .supplyAsync(() -> responseCache.get(url), callbackExecutor)
+            .thenCompose(entry -> {
+                final Optional<EsiResponse> fresh = getUnexpired(entry);
+                if (fresh.isPresent()) {
+                    return CompletableFuture.completedFuture(fresh);
+                }
+                // the permit is taken before the in-flight slot, a request that waits for a permit must not keep
+                // requests of a higher priority from being sent
+                return acquireAsync(endpoint).thenCompose(acquired -> {
+                    if (!acquired) {
+                        return CompletableFuture.completedFuture(Optional.<EsiResponse>empty());
+                    }
+                    // the callback runs on the client's io thread, the cache is written on the callback executor
+                    return inFlightLimiter.submit(() -> sendAsyncWithRetry(endpoint, url, entry))
+                        .thenApplyAsync(response -> {
+                            try {
+                                return handleResponse(endpoint, url, entry, response);
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        }, callbackExecutor)
+                        .whenComplete((response, e) -> {
+                            if (null != e) {
+                                endpointRegistry.recordFailure(endpoint);
+                            }
+                        });
+                });
+            })
+            .exceptionally(e -> {
+                log.error(UNIREST_EXCEPTION, url, e);
                 return Optional.empty();
+            });
+    }
+
+    private Optional<EsiResponse> getUnexpired(final Optional<EsiCacheEntry> entry) {
+        if (entry.isPresent() && null != entry.get().getExpires() && entry.get().getExpires().isAfter(Instant.now())) {
+            return fromCache(entry.get(), entry.get().getPageCount());
+        }
+        return Optional.empty();
+    }
+
+    private GetRequest conditionalGet(final String url, final Optional<EsiCacheEntry> entry) {
+        final GetRequest request = get(url, null);
+        entry.map(EsiCacheEntry::getEtag).ifPresent(etag -> request.header("If-None-Match", etag));
+        return request;
+    }
+
+    /**
+     * Checks the endpoint's circuit breaker and waits for the rate governor. The time spent waiting is recorded as
+     * backoff. Requests that the breaker rejects don't take a permit from the other endpoints.
+     */
+    private boolean acquire(final EsiEndpoint endpoint) {
+        if (!endpointRegistry.allowRequest(endpoint)) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        final boolean acquired = governor.acquire(endpoint);
+        metrics.recordBackoff(endpoint, System.nanoTime() - start);
+        if (!acquired) {
+            endpointRegistry.cancelRequest(endpoint);
+        }
+        return acquired;
+    }
+
+    /**
+     * The non-blocking variant of {@link #acquire(EsiEndpoint)}.
+     */
+    private CompletableFuture<Boolean> acquireAsync(final EsiEndpoint endpoint) {
+        if (!endpointRegistry.allowRequest(endpoint)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        final long start = System.nanoTime();
+        return governor.acquireAsync(endpoint).thenApply(acquired -> {
+            metrics.recordBackoff(endpoint, System.nanoTime() - start);
+            if (!acquired) {
+                endpointRegistry.cancelRequest(endpoint);
             }
+            return acquired;
+        });
+    }
+
+    /**
+     * GET requests are idempotent, a request that failed without a response is sent once more right away.
+     */
+    private HttpResponse<InputStream> sendWithRetry(final EsiEndpoint endpoint, final String url,
+                                                    final Optional<EsiCacheEntry> entry) throws UnirestException {
+        try {
+            return send(endpoint, conditionalGet(url, entry));
+        } catch (UnirestException e) {
+            log.warn("Retrying {} after {}", url, e.getMessage());
+            metrics.recordRetry(endpoint);
+            return send(endpoint, conditionalGet(url, entry));
+        }
+    }
+
+    private HttpResponse<InputStream> send(final EsiEndpoint endpoint, final GetRequest request)
+        throws UnirestException {
+        final Timer.Context latency = metrics.time(endpoint);
+        try {
+            return request.asBinary();
+        } catch (UnirestException e) {
+            metrics.recordFailure(endpoint);
+            throw e;
+        } finally {
+            latency.stop();
+        }
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> sendAsyncWithRetry(final EsiEndpoint endpoint,
+                                                                            final String url,
+                                                                            final Optional<EsiCacheEntry> entry) {
+        final CompletableFuture<HttpResponse<InputStream>> future = new CompletableFuture<>();
+        sendAsync(endpoint, conditionalGet(url, entry)).whenComplete((response, e) -> {
+            if (null == e) {
+                future.complete(response);
+                return;
+            }
+            log.warn("Retrying {} after {}", url, e.getMessage());
+            metrics.recordRetry(endpoint);
+            sendAsync(endpoint, conditionalGet(url, entry)).whenComplete((retried, retryError) -> {
+                if (null == retryError) {
+                    future.complete(retried);
+                } else {
+                    future.completeExceptionally(retryError);
+                }
+            });
+        });
+        return future;
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> sendAsync(final EsiEndpoint endpoint,
+                                                                   final GetRequest request) {
+        final CompletableFuture<HttpResponse<InputStream>> future = new CompletableFuture<>();
+        final Timer.Context latency = metrics.time(endpoint);
+        request.asBinaryAsync(new Callback<InputStream>() {
+            @Override
+            public void completed(final HttpResponse<InputStream> response) {
+                latency.stop();
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(final UnirestException e) {
+                latency.stop();
+                metrics.recordFailure(endpoint);
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                latency.stop();
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    private Optional<EsiResponse> handleResponse(final EsiEndpoint endpoint, final String url,
+                                                 final Optional<EsiCacheEntry> entry,
+                                                 final HttpResponse<InputStream> response) throws IOException {
+        // warn if deprecated
+        if (response.getHeaders().containsKey("warning")) {
+            final String warning = response.getHeaders().getFirst("warning");
+            log.warn("Deprecation: {}, {}", warning, url);
+        }
+        onEsiResponse(endpoint, response);
+        if (isRejectedToken(response.getStatus())) {
+            final Matcher token = TOKEN_PARAMETER.matcher(url);
+            if (token.find()) {
+                accessTokenCache.evict(token.group(1));
+            }
+        }
+        final String expiresHeader = getHeader(response, "Expires");
+        final Instant expires = null == expiresHeader ? null : parseInstant(expiresHeader);
+        final int pageCount = getPageCount(response);
+
+        if (response.getStatus() == 304 && entry.isPresent()) {
+            entry.get().setExpires(expires);
+            final Optional<EsiResponse> cached = fromCache(entry.get(),
+                                                           pageCount > 0 ? pageCount : entry.get().getPageCount());
+            if (cached.isPresent()) {
+                responseCache.refresh(entry.get());
+            } else {
+                // the next request downloads the body again
+                responseCache.evict(url);
+            }
+            return cached;
+        }
+        if (response.getStatus() != 200) {
+            log.warn(WRONG_STATUS_CODE, url, response.getStatus());
+            return Optional.empty();
+        }
+
+        final byte[] body = readBody(response.getBody());
+        metrics.recordBytes(endpoint, body.length);
+        responseCache.recordMiss();
+        final String etag = getHeader(response, "ETag");
+        if (null != etag || null != expires) {
+            responseCache.put(url, etag, expires, pageCount, body);
+        }
+        return Optional.of(new EsiResponse(body, pageCount));
+    }
+
+    private Optional<EsiResponse> fromCache(final EsiCacheEntry entry, final int pageCount) {
+        final byte[] body = responseCache.getBody(entry);
+        if (null == body) {
+            return Optional.empty();
+        }
+        responseCache.recordHit(body.length);
+        return Optional.of(new EsiResponse(body, pageCount));
+    }
+
+    private static byte[] readBody(final InputStream body) throws IOException {
+        try (InputStream in = body) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static int getPageCount(final HttpResponse<?> response) {
+        final String pages = getHeader(response, X_PAGES);
+        if (null == pages) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(pages.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getHeader(final HttpResponse<?> response, final String name) {
+        for (final Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRejectedToken(final int status) {
+        return status == 401 || status == 403;
+    }
+
+    /**
+     * Server errors count against the endpoint's circuit breaker. A 420 pauses all requests until ESI resets the
+     * error limit, so it doesn't count on top.
+     */
+    private void onEsiResponse(final EsiEndpoint endpoint, final HttpResponse<?> response) {
+        metrics.recordStatus(endpoint, response.getStatus());
+        governor.onResponse(response.getStatus(), getHeader(response, ERROR_LIMIT_REMAIN),
+                            getHeader(response, ERROR_LIMIT_RESET));
+        if (response.getStatus() >= 500) {
+            endpointRegistry.recordFailure(endpoint);
+        } else {
+            endpointRegistry.recordSuccess(endpoint);
+        }
+        final String expires = getHeader(response, "Expires");
+        if (null != expires) {
+            endpointRegistry.setExpiry(endpoint, parseInstant(expires).plus(1, ChronoUnit.MINUTES));
+        }
+    }
+
+    /**
+     * Sends a POST request to ESI and reads the response straight from the stream.
+     */
+    private <T> Optional<T> postEsi(final EsiEndpoint endpoint, final RequestBodyEntity request,
+                                    final JavaType type) {
+        final String url = request.getHttpRequest().getUrl();
+        if (!acquire(endpoint)) {
+            return Optional.empty();
+        }
+        final Timer.Context latency = metrics.time(endpoint);
+        try {
+            final HttpResponse<InputStream> response;
+            try {
+                response = request.asBinary();
+            } catch (UnirestException e) {
+                metrics.recordFailure(endpoint);
+                throw e;
+            } finally {
+                latency.stop();
+            }
+            onEsiResponse(endpoint, response);
+            try (CountingInputStream body = new CountingInputStream(response.getBody())) {
+                if (response.getStatus() != 200) {
+                    log.warn(WRONG_STATUS_CODE, url, response.getStatus());
+                    return Optional.empty();
+                }
+                final T result = ESI_MAPPER.readValue(body, type);
+                metrics.recordBytes(endpoint, body.getByteCount());
+                return Optional.of(result);
+            }
+        } catch (UnirestException | IOException e) {
+            endpointRegistry.recordFailure(endpoint);
+            log.error(UNIREST_EXCEPTION, url, e);
+            return Optional.empty();
+        }
+    }
+
+    Optional<JsonNode> executeRequest(final BaseRequest request) {
+        try {
             HttpResponse<JsonNode> response = request.asJson();
             // warn if deprecated
             if (response.getHeaders().containsKey("warning")) {
@@ -144,18 +606,9 @@ public class JsonRequestService {
                 log.warn("Deprecation: {}, {}", warning, request.getHttpRequest().getUrl());
             }
             if (response.getStatus() != 200) {
-                if (Arrays.asList(420, 502, 503).contains(response.getStatus())) {
-                    esiCacheExpiries.put(BACK_OFF, Instant.now().plus(5, ChronoUnit.MINUTES));
-                }
                 log.warn(WRONG_STATUS_CODE, request.getHttpRequest().getUrl(), response.getStatus());
                 return Optional.empty();
             }
-            if (null != cachingUserCase) {
-                final String expires = response.getHeaders().getFirst("Expires");
-                if (null != expires) {
-                    esiCacheExpiries.put(cachingUserCase, parseInstant(expires).plus(1, ChronoUnit.MINUTES));
-                }
-            }
             return Optional.of(response.getBody());
         } catch (UnirestException e) {
             log.error(UNIREST_EXCEPTION, request.getHttpRequest().getUrl(), e);
@@ -180,59 +633,120 @@ public class JsonRequestService {
         return Unirest.post(url).headers(headers).body(node);
     }
 
-    Optional<JsonNode> getCorpContracts(final String accessToken, final int page) {
-        return justGet(String.format("%s/v1/corporations/%d/contracts/?token=%s&page=%d", ESI_BASE_URL, CORPORATION, accessToken, page), "corpContracts");
+    Optional<List<EsiContract>> getCorpContracts(final String accessToken, final int page) {
+        return justGet(EsiEndpoint.CORP_CONTRACTS, String.format("%s/v1/corporations/%d/contracts/?token=%s&page=%d", esiBaseUrl, CORPORATION, accessToken, page), CONTRACT_LIST);
+    }
+
+    Optional<List<EsiContractItem>> getCorpContractItems(final long contractId, final String accessToken) {
+        return justGet(EsiEndpoint.CORP_CONTRACT_ITEMS, corpContractItemsUrl(contractId, accessToken), CONTRACT_ITEM_LIST);
+    }
+
+    CompletableFuture<Optional<List<EsiContractItem>>> getCorpContractItemsAsync(final long contractId, final String accessToken) {
+        return justGetAsync(EsiEndpoint.CORP_CONTRACT_ITEMS, corpContractItemsUrl(contractId, accessToken), CONTRACT_ITEM_LIST);
+    }
+
+    private String corpContractItemsUrl(final long contractId, final String accessToken) {
+        return String.format("%s/v1/corporations/%d/contracts/%d/items/?token=%s", esiBaseUrl, CORPORATION, contractId, accessToken);
+    }
+
+    Optional<EsiCorporation> getCorporationInfo(final long corporationId) {
+        return justGet(EsiEndpoint.CORPORATION_INFO, corporationInfoUrl(corporationId), ESI_CORPORATION);
     }
 
-    Optional<JsonNode> getCorpContractItems(final long contractId, final String accessToken) {
-        return justGet(String.format("%s/v1/corporations/%d/contracts/%d/items/?token=%s", ESI_BASE_URL, CORPORATION, contractId, accessToken), "corpContractItems");
+    CompletableFuture<Optional<EsiCorporation>> getCorporationInfoAsync(final long corporationId) {
+        return justGetAsync(EsiEndpoint.CORPORATION_INFO, corporationInfoUrl(corporationId), ESI_CORPORATION);
     }
 
-    Optional<JsonNode> getCorporationInfo(final long corporationId) {
-        return justGet(String.format("%s/v4/corporations/%d/", ESI_BASE_URL, corporationId), null);
+    private String corporationInfoUrl(final long corporationId) {
+        return String.format("%s/v4/corporations/%d/", esiBaseUrl, corporationId);
     }
 
-    Optional<JsonNode> getCharacterName(final long characterId) {
-        String url = "https://esi.evetech.net/v3/universe/names/";
-        final RequestBodyEntity request = Unirest.post(url).headers(defaultHeaders).body(singletonList(characterId));
-        return executeRequest(request, "characterName");
+    /**
+     * @param ids at most 1000 ids, ESI rejects the whole request if one of them is invalid
+     */
+    Optional<List<EsiName>> getNames(final Collection<Long> ids) {
+        String url = String.format("%s/v3/universe/names/", esiBaseUrl);
+        final RequestBodyEntity request = Unirest.post(url).headers(defaultHeaders).body(new ArrayList<>(ids));
+        return postEsi(EsiEndpoint.NAMES, request, NAME_LIST);
     }
 
-    Optional<JsonNode> getTypeInfo(final long typeId) {
-        return justGet(String.format("%s/v2/universe/types/%d", ESI_BASE_URL, typeId), null);
+    Optional<EsiType> getTypeInfo(final long typeId) {
+        return justGet(EsiEndpoint.TYPE_INFO, typeInfoUrl(typeId), ESI_TYPE);
     }
 
-    Optional<JsonNode> searchType(final String typeName) {
+    CompletableFuture<Optional<EsiType>> getTypeInfoAsync(final long typeId) {
+        return justGetAsync(EsiEndpoint.TYPE_INFO, typeInfoUrl(typeId), ESI_TYPE);
+    }
+
+    private String typeInfoUrl(final long typeId) {
+        return String.format("%s/v2/universe/types/%d", esiBaseUrl, typeId);
+    }
+
+    Optional<EsiSearchResult> searchType(final String typeName) {
         final String encodedTYpeName;
         try {
             encodedTYpeName = URLEncoder.encode(typeName, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
-        return justGet(String.format("%s/v2/search/?categories=inventory_type&search=%s&strict=true", ESI_BASE_URL,
-                                     encodedTYpeName), null);
+        return justGet(EsiEndpoint.SEARCH, String.format("%s/v2/search/?categories=inventory_type&search=%s&strict=true",
+                                                         esiBaseUrl, encodedTYpeName), ESI_SEARCH_RESULT);
     }
 
-    Optional<JsonNode> getGroupInfo(final long groupId) {
-        return justGet(String.format("%s/v1/universe/groups/%d", ESI_BASE_URL, groupId), null);
+    Optional<EsiGroup> getGroupInfo(final long groupId) {
+        return justGet(EsiEndpoint.GROUP_INFO, groupInfoUrl(groupId), ESI_GROUP);
     }
 
-    Optional<JsonNode> getCategoryInfo(final long categoryId) {
-        return justGet(String.format("%s/v1/universe/categories/%d", ESI_BASE_URL, categoryId), null);
+    CompletableFuture<Optional<EsiGroup>> getGroupInfoAsync(final long groupId) {
+        return justGetAsync(EsiEndpoint.GROUP_INFO, groupInfoUrl(groupId), ESI_GROUP);
     }
 
-    Optional<JsonNode> getAssets(final String accessToken, final int page) {
-        return justGet(String.format("%s/v3/corporations/%d/assets/?token=%s&page=%d", ESI_BASE_URL, THE_BUYBACK, accessToken, page), "corpAssets");
+    private String groupInfoUrl(final long groupId) {
+        return String.format("%s/v1/universe/groups/%d", esiBaseUrl, groupId);
     }
 
-    Optional<JsonNode> getStructureInfo(final long structureId, final String accessToken) {
-        String url = String.format("%s/v2/universe/structures/%d/?token=%s", ESI_BASE_URL, structureId, accessToken);
-        return justGet(url, null);
+    Optional<EsiCategory> getCategoryInfo(final long categoryId) {
+        return justGet(EsiEndpoint.CATEGORY_INFO, categoryInfoUrl(categoryId), ESI_CATEGORY);
     }
 
-    Optional<JsonNode> getStationInfo(final long stationId) {
-        String url = String.format("%s/v2/universe/stations/%d/", ESI_BASE_URL, stationId);
-        return justGet(url, null);
+    CompletableFuture<Optional<EsiCategory>> getCategoryInfoAsync(final long categoryId) {
+        return justGetAsync(EsiEndpoint.CATEGORY_INFO, categoryInfoUrl(categoryId), ESI_CATEGORY);
+    }
+
+    private String categoryInfoUrl(final long categoryId) {
+        return String.format("%s/v1/universe/categories/%d", esiBaseUrl, categoryId);
+    }
+
+    CompletableFuture<Optional<List<Long>>> getCategoryIdsAsync() {
+        return justGetAsync(EsiEndpoint.CATEGORIES, String.format("%s/v1/universe/categories/", esiBaseUrl), ID_LIST);
+    }
+
+    Optional<List<EsiAsset>> getAssets(final String accessToken, final int page) {
+        return justGet(EsiEndpoint.CORP_ASSETS, String.format("%s/v3/corporations/%d/assets/?token=%s&page=%d", esiBaseUrl, THE_BUYBACK, accessToken, page), ASSET_LIST);
+    }
+
+    Optional<EsiStructure> getStructureInfo(final long structureId, final String accessToken) {
+        return justGet(EsiEndpoint.STRUCTURE_INFO, structureInfoUrl(structureId, accessToken), ESI_STRUCTURE);
+    }
+
+    CompletableFuture<Optional<EsiStructure>> getStructureInfoAsync(final long structureId, final String accessToken) {
+        return justGetAsync(EsiEndpoint.STRUCTURE_INFO, structureInfoUrl(structureId, accessToken), ESI_STRUCTURE);
+    }
+
+    private String structureInfoUrl(final long structureId, final String accessToken) {
+        return String.format("%s/v2/universe/structures/%d/?token=%s", esiBaseUrl, structureId, accessToken);
+    }
+
+    Optional<EsiStation> getStationInfo(final long stationId) {
+        return justGet(EsiEndpoint.STATION_INFO, stationInfoUrl(stationId), ESI_STATION);
+    }
+
+    CompletableFuture<Optional<EsiStation>> getStationInfoAsync(final long stationId) {
+        return justGetAsync(EsiEndpoint.STATION_INFO, stationInfoUrl(stationId), ESI_STATION);
+    }
+
+    private String stationInfoUrl(final long stationId) {
+        return String.format("%s/v2/universe/stations/%d/", esiBaseUrl, stationId);
     }
 
     public Optional<String> sendMail(final long recipientId, final String title, final String mail, final String accessToken) {
@@ -240,10 +754,19 @@ public class JsonRequestService {
         Map<String, String> headers = new HashMap<>();
         headers.put("Authorization", "Bearer " + accessToken);
         headers.put("Content-Type", "application/json");
-        RequestBodyEntity request = post(String.format("%s/v1/characters/%d/mail/", ESI_BASE_URL, MAIL_CHAR), body, headers);
+        RequestBodyEntity request = post(String.format("%s/v1/characters/%d/mail/", esiBaseUrl, MAIL_CHAR), body, headers);
 
+        if (!acquire(EsiEndpoint.MAIL)) {
+            return Optional.empty();
+        }
+        final Timer.Context latency = metrics.time(EsiEndpoint.MAIL);
         try {
             HttpResponse<String> response = request.asString();
+            latency.stop();
+            onEsiResponse(EsiEndpoint.MAIL, response);
+            if (isRejectedToken(response.getStatus())) {
+                accessTokenCache.evict(accessToken);
+            }
             // warn if deprecated
             if (response.getHeaders().containsKey("warning")) {
                 final String warning = response.getHeaders().getFirst("warning");
@@ -255,18 +778,26 @@ public class JsonRequestService {
             }
             return Optional.of(response.getBody());
         } catch (UnirestException e) {
+            latency.stop();
+            metrics.recordFailure(EsiEndpoint.MAIL);
+            endpointRegistry.recordFailure(EsiEndpoint.MAIL);
             log.error(UNIREST_EXCEPTION, request.getHttpRequest().getUrl(), e);
             return Optional.empty();
         }
     }
 
-    public Optional<JsonNode> getMasterWalletBalance(final String accessToken) {
-        String url = String.format("%s/v1/corporations/%d/wallets/?token=%s", ESI_BASE_URL, THE_BUYBACK, accessToken);
-        return justGet(url, accessToken);
+    public Optional<List<EsiWalletDivision>> getMasterWalletBalance(final String accessToken) {
+        String url = String.format("%s/v1/corporations/%d/wallets/?token=%s", esiBaseUrl, THE_BUYBACK, accessToken);
+        return justGet(EsiEndpoint.WALLET, url, WALLET_DIVISION_LIST);
+    }
+
+    public Optional<List<EsiCorpOrder>> getCorpMarketOrders(final String accessToken) {
+        String url = String.format("%s/v2/corporations/%d/orders/?token=%s", esiBaseUrl, THE_BUYBACK, accessToken);
+        return justGet(EsiEndpoint.CORP_ORDERS, url, CORP_ORDER_LIST);
     }
 
-    public Optional<JsonNode> getCorpMarketOrders(final String accessToken) {
-        String url = String.format("%s/v2/corporations/%d/orders/?token=%s", ESI_BASE_URL, THE_BUYBACK, accessToken);
-        return justGet(url, accessToken);
+    @PreDestroy
+    public void shutdown() {
+        callbackExecutor.shutdownNow();
     }
 }
@@ -1,19 +0,0 @@
-package com.thebuyback.eve.service;
-
-import java.util.LinkedHashMap;
-import java.util.Map;
-
-public class LRUCache<K, V> extends LinkedHashMap<K, V> {
-    private static final long serialVersionUID = -7892679589169841571L;
-    private final int cacheSize;
-
-    public LRUCache(int cacheSize) {
-        super(16, 0.75f, true);
-        this.cacheSize = cacheSize;
-    }
-
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return size() >= cacheSize;
-    }
-}
@@ -4,10 +4,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import com.mashape.unirest.http.JsonNode;
+import com.codahale.metrics.MetricRegistry;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.thebuyback.eve.domain.Token;
 import com.thebuyback.eve.repository.TokenRepository;
+import com.thebuyback.eve.service.dto.esi.EsiStation;
+import com.thebuyback.eve.service.dto.esi.EsiStructure;
 
 import static com.thebuyback.eve.service.AssetParser.ASSET_PARSER_CLIENT;
 
@@ -22,12 +24,17 @@ public class LocationService {
 
     private final JsonRequestService requestService;
     private final TokenRepository tokenRepository;
-    private final Map<Long, String> cache = new HashMap<>();
+    private final DictionarySnapshot snapshot;
+    private final TinyLfuCache<Long, String> cache;
 
     public LocationService(final JsonRequestService requestService,
-                           final TokenRepository tokenRepository) {
+                           final TokenRepository tokenRepository,
+                           final DictionarySnapshot snapshot,
+                           final MetricRegistry metricRegistry) {
         this.requestService = requestService;
         this.tokenRepository = tokenRepository;
+        this.snapshot = snapshot;
+        cache = new TinyLfuCache<>("locations", 10_000, metricRegistry);
     }
 
     String fetchStructureName(long locationId) {
@@ -53,29 +60,42 @@ public class LocationService {
     }
 
     String fetchStructureName(final long locationId, final boolean isStation) {
-        if (!cache.containsKey(locationId)) {
-            setStructureName(locationId, isStation);
-        }
-        return cache.get(locationId);
+        return cache.computeIfAbsent(locationId, id -> {
+            final String name = snapshot.getLocationName(id);
+            return null != name ? name : loadStructureName(id, isStation);
+        });
+    }
+
+    /**
+     * @return the names of the cached locations that could be resolved
+     */
+    Map<Long, String> getLocationNames() {
+        final Map<Long, String> names = new HashMap<>();
+        cache.forEach((locationId, name) -> {
+            if (!"N/A".equals(name)) {
+                names.put(locationId, name);
+            }
+        });
+        return names;
     }
 
-    private void setStructureName(final long locationId, final boolean isStation) {
+    private String loadStructureName(final long locationId, final boolean isStation) {
         final Token token = tokenRepository.findByClientId(ASSET_PARSER_CLIENT).get(0);
         final String accessToken;
         String locationName = "N/A";
         try {
             if (!isStation) {
                 accessToken = requestService.getAccessToken(token);
-                final Optional<JsonNode> optional = requestService.getStructureInfo(locationId, accessToken);
+                final Optional<EsiStructure> optional = requestService.getStructureInfo(locationId, accessToken);
                 if (optional.isPresent()) {
-                    locationName = optional.get().getObject().getString("name");
+                    locationName = optional.get().getName();
                 } else {
                     log.warn("Failed to get location infos for structure={}.", locationId);
                 }
             } else {
-                final Optional<JsonNode> optional = requestService.getStationInfo(locationId);
+                final Optional<EsiStation> optional = requestService.getStationInfo(locationId);
                 if (optional.isPresent()) {
-                    locationName = optional.get().getObject().getString("name");
+                    locationName = optional.get().getName();
                 } else {
                     log.warn("Failed to get location infos for structure={}.", locationId);
                 }
@@ -83,11 +103,7 @@ public class LocationService {
         } catch (UnirestException e) {
             log.error("Failed to get access token for fetchStructureName.", e);
         }
-        cache.put(locationId, locationName);
-        log.info("Added a locationName. Now holding {} locations. {} are N/A.", cache.size(), getNAs(cache));
-    }
-
-    private long getNAs(final Map<Long, String> cache) {
-        return cache.entrySet().stream().filter(longStringEntry -> longStringEntry.getValue().equals("N/A")).count();
+        log.info("Resolved the name of location {}, {} locations are cached.", locationId, cache.size() + 1);
+        return locationName;
     }
 }
@@ -0,0 +1,98 @@
+package com.thebuyback.eve.service;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A map from primitive longs to values with open addressing and linear probing. Keys are neither boxed nor wrapped
+ * in entries, a lookup touches two arrays.
+ *
+ * Not thread safe: fill the map first and only read it after it has been published to other threads.
+ */
+final class LongObjectMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    LongObjectMap(final int expectedSize) {
+        // at most half of the slots are used, which keeps the probe sequences short
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(final long key) {
+        int index = indexOf(key);
+        while (null != values[index]) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param value must not be null, an empty slot is marked by a null value
+     */
+    void put(final long key, final V value) {
+        if (null == value) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        int index = indexOf(key);
+        while (null != values[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(final ObjLongConsumer<V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (null != values[i]) {
+                consumer.accept((V) values[i], keys[i]);
+            }
+        }
+    }
+
+    private int indexOf(final long key) {
+        // the fibonacci hash spreads consecutive ids over the whole table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (null != oldValues[i]) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package com.thebuyback.eve.service;
+
+import com.thebuyback.eve.repository.MarketOrderRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Removes market order versions that no reader can see anymore. The generation right before the current one is kept,
+ * so that readers which picked up the pointer just before it moved can finish.
+ */
+@Service
+public class MarketGenerationCollector {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final MarketOrderRepository marketOrderRepository;
+
+    public MarketGenerationCollector(final MarketOrderRepository marketOrderRepository) {
+        this.marketOrderRepository = marketOrderRepository;
+    }
+
+    @Async
+    public void collect(final long locationId, final long currentGeneration) {
+        final long removed = marketOrderRepository.removeGenerationsBefore(locationId, currentGeneration);
+        log.debug("Removed {} market order versions before generation {} of {}.", removed, currentGeneration,
+                  locationId);
+    }
+}
@@ -0,0 +1,210 @@
+package com.thebuyback.eve.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes an ESI market order page token by token into a {@link MarketSnapshot.Builder}.
+ *
+ * Field values are kept in primitives until the whole order has been read, so orders that don't match the
+ * required location are dropped before anything is allocated for them. Kept orders are copied into the builder's
+ * columns without creating objects either.
+ */
+final class MarketOrderDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketOrderDecoder.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private MarketOrderDecoder() {
+    }
+
+    /**
+     * @param body the response body, a json array of market orders
+     * @param requiredLocationId only orders at this location are kept, null keeps all orders
+     * @param sink receives the decoded orders
+     * @return the number of orders on the page, including the dropped ones
+     */
+    static int decode(final InputStream body, final Long requiredLocationId, final MarketSnapshot.Builder sink)
+        throws IOException {
+        final OrderFields fields = new OrderFields();
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of market orders.");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                count++;
+                fields.reset();
+                readOrder(parser, fields);
+
+                // the payload one time didn't contain the location id
+                if (!fields.hasLocationId) {
+                    log.warn("A market order did not contain a locationId. orderId={}", fields.orderId);
+                    continue;
+                }
+                if (null != requiredLocationId && requiredLocationId != fields.locationId) {
+                    continue;
+                }
+                fields.addTo(sink);
+            }
+        }
+        return count;
+    }
+
+    private static void readOrder(final JsonParser parser, final OrderFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "order_id":
+                    fields.orderId = parser.getLongValue();
+                    break;
+                case "type_id":
+                    fields.typeId = parser.getLongValue();
+                    break;
+                case "location_id":
+                    fields.locationId = parser.getLongValue();
+                    fields.hasLocationId = true;
+                    break;
+                case "volume_total":
+                    fields.volumeTotal = parser.getIntValue();
+                    break;
+                case "volume_remain":
+                    fields.volumeRemain = parser.getIntValue();
+                    break;
+                case "min_volume":
+                    fields.minVolume = parser.getIntValue();
+                    break;
+                case "price":
+                    fields.price = parser.getDoubleValue();
+                    break;
+                case "is_buy_order":
+                    fields.isBuyOrder = parser.getBooleanValue();
+                    break;
+                case "duration":
+                    fields.duration = parser.getIntValue();
+                    break;
+                case "issued":
+                    fields.issued.copyFrom(parser);
+                    break;
+                case "range":
+                    fields.range.copyFrom(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static final class OrderFields {
+        private long orderId;
+        private long typeId;
+        private long locationId;
+        private boolean hasLocationId;
+        private int volumeTotal;
+        private int volumeRemain;
+        private int minVolume;
+        private double price;
+        private boolean isBuyOrder;
+        private int duration;
+        private final TextBuffer issued = new TextBuffer();
+        private final TextBuffer range = new TextBuffer();
+
+        private void reset() {
+            orderId = 0;
+            typeId = 0;
+            locationId = 0;
+            hasLocationId = false;
+            volumeTotal = 0;
+            volumeRemain = 0;
+            minVolume = 0;
+            price = 0;
+            isBuyOrder = false;
+            duration = 0;
+            issued.length = 0;
+            range.length = 0;
+        }
+
+        private void addTo(final MarketSnapshot.Builder sink) {
+            sink.add(orderId, typeId, isBuyOrder, price, volumeRemain, volumeTotal, minVolume, duration,
+                     issued.toEpochSecond(), MarketSnapshot.rangeCode(range));
+        }
+    }
+
+    /**
+     * A reusable copy of a string token, so that no String is created while an order is decoded.
+     */
+    private static final class TextBuffer implements CharSequence {
+
+        private char[] chars = new char[32];
+        private int length;
+
+        private void copyFrom(final JsonParser parser) throws IOException {
+            length = parser.getTextLength();
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), chars, 0, length);
+        }
+
+        /**
+         * Esi timestamps look like 2018-05-14T12:34:56Z, anything else is left to {@link Instant#parse}.
+         */
+        private long toEpochSecond() {
+            if (length != 20 || chars[4] != '-' || chars[7] != '-' || chars[10] != 'T' || chars[13] != ':'
+                || chars[16] != ':' || chars[19] != 'Z') {
+                return Instant.parse(this).getEpochSecond();
+            }
+            final long days = daysFromCivil(digits(0, 4), digits(5, 2), digits(8, 2));
+            return days * 86_400L + digits(11, 2) * 3_600L + digits(14, 2) * 60L + digits(17, 2);
+        }
+
+        private int digits(final int offset, final int count) {
+            int value = 0;
+            for (int i = offset; i < offset + count; i++) {
+                value = value * 10 + (chars[i] - '0');
+            }
+            return value;
+        }
+
+        // days since 1970-01-01 for a date in the proleptic gregorian calendar
+        private static long daysFromCivil(final int year, final int month, final int day) {
+            final int y = month <= 2 ? year - 1 : year;
+            final int era = (y >= 0 ? y : y - 399) / 400;
+            final int yearOfEra = y - era * 400;
+            final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+            final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+            return era * 146_097L + dayOfEra - 719_468L;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
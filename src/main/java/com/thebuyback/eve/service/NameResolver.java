@@ -0,0 +1,88 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.thebuyback.eve.domain.EntityName;
+import com.thebuyback.eve.repository.EntityNameRepository;
+import com.thebuyback.eve.service.dto.esi.EsiName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves the names of characters, corporations and other entities. Names that were resolved once are stored, ids
+ * that aren't known yet are sent to ESI in batches.
+ */
+@Service
+public class NameResolver {
+
+    // the maximum number of ids that /universe/names accepts
+    static final int BATCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final JsonRequestService requestService;
+    private final EntityNameRepository entityNameRepository;
+
+    public NameResolver(final JsonRequestService requestService, final EntityNameRepository entityNameRepository) {
+        this.requestService = requestService;
+        this.entityNameRepository = entityNameRepository;
+    }
+
+    public Optional<String> resolveName(final long id) {
+        return Optional.ofNullable(resolveNames(Collections.singleton(id)).get(id));
+    }
+
+    /**
+     * @return the names by id, ids that couldn't be resolved are missing
+     */
+    public Map<Long, String> resolveNames(final Collection<Long> ids) {
+        final Map<Long, String> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        final Set<Long> missing = new LinkedHashSet<>(ids);
+        entityNameRepository.findAll(missing).forEach(entity -> {
+            result.put(entity.getId(), entity.getName());
+            missing.remove(entity.getId());
+        });
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        final List<Long> remaining = new ArrayList<>(missing);
+        final List<EntityName> resolved = new ArrayList<>();
+        for (int i = 0; i < remaining.size(); i += BATCH_SIZE) {
+            resolve(remaining.subList(i, Math.min(i + BATCH_SIZE, remaining.size())), resolved);
+        }
+        entityNameRepository.save(resolved);
+        resolved.forEach(entity -> result.put(entity.getId(), entity.getName()));
+        log.debug("Resolved {} of {} unknown names.", resolved.size(), remaining.size());
+        return result;
+    }
+
+    private void resolve(final List<Long> batch, final List<EntityName> resolved) {
+        final Optional<List<EsiName>> response = requestService.getNames(batch);
+        if (response.isPresent()) {
+            for (final EsiName name : response.get()) {
+                resolved.add(new EntityName(name.getId(), name.getName(), name.getCategory()));
+            }
+        } else if (batch.size() > 1 && requestService.isAvailable(EsiEndpoint.NAMES)) {
+            // a single invalid id fails the whole batch, halving it isolates the invalid ones
+            final int half = batch.size() / 2;
+            resolve(batch.subList(0, half), resolved);
+            resolve(batch.subList(half, batch.size()), resolved);
+        } else {
+            log.warn("Failed to resolve the names of {} ids, starting with {}.", batch.size(), batch.get(0));
+        }
+    }
+}
@@ -5,7 +5,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.thebuyback.eve.domain.Asset;
 import com.thebuyback.eve.domain.NetWorth;
@@ -13,9 +12,9 @@ import com.thebuyback.eve.domain.Token;
 import com.thebuyback.eve.repository.AssetRepository;
 import com.thebuyback.eve.repository.NetWorthHistoryRepository;
 import com.thebuyback.eve.repository.TokenRepository;
+import com.thebuyback.eve.service.dto.esi.EsiCorpOrder;
+import com.thebuyback.eve.service.dto.esi.EsiWalletDivision;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
@@ -77,20 +76,14 @@ public class NetWorthParser {
     }
 
     private void addMarketHistory(final String accessToken) {
-        final Optional<JsonNode> node = requestService.getCorpMarketOrders(accessToken);
-        if (node.isPresent()) {
+        final Optional<List<EsiCorpOrder>> orders = requestService.getCorpMarketOrders(accessToken);
+        if (orders.isPresent()) {
             double total = 0.0;
-            final JSONArray ordersArray = node.get().getArray();
-            for (int i = 0; i < ordersArray.length(); i++) {
-                final JSONObject order = ordersArray.getJSONObject(i);
-                final boolean isBuyOrder = order.has("is_buy_order") && order.getBoolean("is_buy_order");
-                final int volumeRemain = order.getInt("volume_remain");
-                final double price = order.getDouble("price");
-                final double escrow = order.has("escrow") ? order.getDouble("escrow") : 0.0;
-                if (isBuyOrder) {
-                    total += escrow;
+            for (final EsiCorpOrder order : orders.get()) {
+                if (order.isBuyOrder()) {
+                    total += order.getEscrow();
                 } else {
-                    total += price * volumeRemain;
+                    total += order.getPrice() * order.getVolumeRemain();
                 }
             }
             saveMarketOrdersToNetWorth(total);
@@ -123,15 +116,14 @@ public class NetWorthParser {
     private void addWalletHistory(final String accessToken) {
 
 
-        final Optional<JsonNode> node = requestService.getMasterWalletBalance(accessToken);
-        if (node.isPresent()) {
-            final JSONArray divisionArray = node.get().getArray();
+        final Optional<List<EsiWalletDivision>> divisions = requestService.getMasterWalletBalance(accessToken);
+        if (divisions.isPresent()) {
             Double balance = null;
-            for (int i = 0; i < divisionArray.length(); i++) {
-                if (divisionArray.getJSONObject(i).getInt("division") != 1) {
+            for (final EsiWalletDivision division : divisions.get()) {
+                if (division.getDivision() != 1) {
                     continue;
                 }
-                balance = divisionArray.getJSONObject(i).getDouble("balance");
+                balance = division.getBalance();
             }
             if (balance == null) {
                 log.warn("Could not find the balance for the master wallet.");
@@ -0,0 +1,140 @@
+package com.thebuyback.eve.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+/**
+ * An immutable view on the {@link MarketSnapshot} of one location. Orders in the snapshot are already sorted from the
+ * best to the worst price per type and side, so all queries are a lookup in the type index plus a binary search at
+ * most.
+ */
+public final class OrderBook {
+
+    private final MarketSnapshot snapshot;
+
+    private OrderBook(final MarketSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public static OrderBook empty(final long locationId) {
+        return of(MarketSnapshot.builder().build(locationId, Instant.now(), false));
+    }
+
+    public static OrderBook of(final MarketSnapshot snapshot) {
+        return new OrderBook(snapshot);
+    }
+
+    public static OrderBook of(final long locationId, final Collection<MarketOrder> orders) {
+        final MarketSnapshot.Builder builder = MarketSnapshot.builder();
+        orders.forEach(builder::add);
+        return of(builder.build(locationId, Instant.now(), false));
+    }
+
+    public long getLocationId() {
+        return snapshot.getLocationId();
+    }
+
+    public MarketSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the lowest sell price for the type
+     */
+    public Optional<Double> getBestAsk(final long typeId) {
+        final int type = snapshot.indexOfType(typeId);
+        if (type < 0 || snapshot.getSellStart(type) == snapshot.getSellEnd(type)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.getPrice(snapshot.getSellStart(type)));
+    }
+
+    /**
+     * @return the highest buy price for the type
+     */
+    public Optional<Double> getBestBid(final long typeId) {
+        final int type = snapshot.indexOfType(typeId);
+        if (type < 0 || snapshot.getBuyStart(type) == snapshot.getBuyEnd(type)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.getPrice(snapshot.getBuyStart(type)));
+    }
+
+    /**
+     * @return the remaining volume of all sell orders for the type
+     */
+    public long getSellVolume(final long typeId) {
+        final int type = snapshot.indexOfType(typeId);
+        if (type < 0 || snapshot.getSellStart(type) == snapshot.getSellEnd(type)) {
+            return 0L;
+        }
+        return snapshot.getCumulativeVolume(snapshot.getSellEnd(type) - 1);
+    }
+
+    /**
+     * @return the remaining volume that is offered at or below the given price
+     */
+    public long getSellDepth(final long typeId, final double maxPrice) {
+        final int type = snapshot.indexOfType(typeId);
+        return type < 0 ? 0L : getVolumeUntil(snapshot.getSellStart(type), snapshot.getSellEnd(type), maxPrice, false);
+    }
+
+    /**
+     * @return the remaining volume that is requested at or above the given price
+     */
+    public long getBuyDepth(final long typeId, final double minPrice) {
+        final int type = snapshot.indexOfType(typeId);
+        return type < 0 ? 0L : getVolumeUntil(snapshot.getBuyStart(type), snapshot.getBuyEnd(type), minPrice, true);
+    }
+
+    /**
+     * @return the typeIds whose best sell price or sell volume differs between the previous book and this one
+     */
+    public Set<Long> getChangedTypeIds(final OrderBook previous) {
+        final MarketSnapshot other = previous.snapshot;
+        final Set<Long> changed = new HashSet<>();
+        // both type indexes are sorted, so they can be walked side by side
+        int mine = 0;
+        int theirs = 0;
+        while (mine < snapshot.getTypeCount() || theirs < other.getTypeCount()) {
+            final long myTypeId = mine < snapshot.getTypeCount() ? snapshot.getTypeIdAt(mine) : Long.MAX_VALUE;
+            final long theirTypeId = theirs < other.getTypeCount() ? other.getTypeIdAt(theirs) : Long.MAX_VALUE;
+            final long typeId = Math.min(myTypeId, theirTypeId);
+            if (myTypeId != theirTypeId || getSellVolume(typeId) != previous.getSellVolume(typeId)
+                || !Objects.equals(getBestAsk(typeId), previous.getBestAsk(typeId))) {
+                changed.add(typeId);
+            }
+            if (myTypeId == typeId) {
+                mine++;
+            }
+            if (theirTypeId == typeId) {
+                theirs++;
+            }
+        }
+        return changed;
+    }
+
+    private long getVolumeUntil(final int start, final int end, final double limit, final boolean descending) {
+        // index of the first order that is worse than the limit
+        int low = start;
+        int high = end;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final double price = snapshot.getPrice(mid);
+            final boolean withinLimit = descending ? price >= limit : price <= limit;
+            if (withinLimit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == start ? 0L : snapshot.getCumulativeVolume(low - 1);
+    }
+}
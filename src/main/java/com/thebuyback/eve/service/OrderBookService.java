@@ -0,0 +1,62 @@
+package com.thebuyback.eve.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.thebuyback.eve.domain.MarketSnapshot;
+import com.thebuyback.eve.repository.MarketOrderRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds one {@link OrderBook} per location. Books are immutable and replaced as a whole, so readers always see a
+ * complete snapshot of a location.
+ */
+@Service
+public class OrderBookService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final MarketOrderRepository marketOrderRepository;
+    private volatile Map<Long, OrderBook> books = Collections.emptyMap();
+
+    public OrderBookService(final MarketOrderRepository marketOrderRepository) {
+        this.marketOrderRepository = marketOrderRepository;
+    }
+
+    public OrderBook getBook(final long locationId) {
+        final OrderBook book = books.get(locationId);
+        if (null != book) {
+            return book;
+        }
+        // nothing has been loaded since the start, fall back to the last stored orders
+        log.info("Loading order book for {} from the database.", locationId);
+        return publish(OrderBook.of(locationId, marketOrderRepository.findCurrentByLocationId(locationId)), false);
+    }
+
+    /**
+     * Replaces the book of the snapshot's location.
+     *
+     * @return the typeIds whose best sell price or sell volume changed, all typeIds if there was no previous book
+     */
+    public Set<Long> update(final MarketSnapshot snapshot) {
+        final OrderBook previous = books.get(snapshot.getLocationId());
+        final OrderBook book = publish(OrderBook.of(snapshot), true);
+        return book.getChangedTypeIds(null != previous ? previous : OrderBook.empty(snapshot.getLocationId()));
+    }
+
+    private synchronized OrderBook publish(final OrderBook book, final boolean replace) {
+        final OrderBook current = books.get(book.getLocationId());
+        if (null != current && !replace) {
+            return current;
+        }
+        final Map<Long, OrderBook> next = new HashMap<>(books);
+        next.put(book.getLocationId(), book);
+        books = Collections.unmodifiableMap(next);
+        return book;
+    }
+}
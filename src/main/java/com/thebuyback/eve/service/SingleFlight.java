@@ -0,0 +1,84 @@
+package com.thebuyback.eve.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent calls with the same key share one execution. A call that arrives while another one with the same
+ * key is running waits for its result instead of running again. Nothing is kept once the running call completes.
+ */
+final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> running = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs the call on the calling thread, or waits for the running call with the same key.
+     */
+    V execute(final K key, final Supplier<V> call) {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> existing = running.putIfAbsent(key, flight);
+        if (null != existing) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            final V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, flight);
+        }
+    }
+
+    /**
+     * Starts the asynchronous call, or returns the result of the running call with the same key.
+     */
+    CompletableFuture<V> executeAsync(final K key, final Supplier<CompletableFuture<V>> call) {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> existing = running.putIfAbsent(key, flight);
+        if (null != existing) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        final CompletableFuture<V> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            running.remove(key, flight);
+            flight.completeExceptionally(e);
+            return flight;
+        }
+        future.whenComplete((value, error) -> {
+            // removed first, so that a caller that is handed the result doesn't join a completed flight
+            running.remove(key, flight);
+            if (null != error) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight;
+    }
+
+    /**
+     * @return the number of calls that shared the execution of another call
+     */
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
@@ -1,5 +1,8 @@
 package com.thebuyback.eve.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
@@ -16,22 +19,28 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
+import static com.codahale.metrics.MetricRegistry.name;
+
+import javax.annotation.PreDestroy;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.mashape.unirest.http.exceptions.UnirestException;
-import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.config.ApplicationProperties;
+import com.thebuyback.eve.domain.MarketOrderSyncResult;
+import com.thebuyback.eve.domain.MarketSnapshot;
 import com.thebuyback.eve.domain.Token;
-import com.thebuyback.eve.domain.enumeration.Availability;
 import com.thebuyback.eve.domain.stock.Doctrine;
 import com.thebuyback.eve.domain.stock.Fitting;
-import com.thebuyback.eve.domain.stock.FittingItem;
 import com.thebuyback.eve.domain.stock.Hub;
 import com.thebuyback.eve.domain.stock.StockDoctrine;
-import com.thebuyback.eve.domain.stock.StockItem;
 import com.thebuyback.eve.domain.stock.TypeStockHistory;
 import com.thebuyback.eve.repository.DoctrineRepository;
 import com.thebuyback.eve.repository.FittingRepository;
@@ -41,8 +50,6 @@ import com.thebuyback.eve.repository.StockDoctrineRepository;
 import com.thebuyback.eve.repository.TokenRepository;
 import com.thebuyback.eve.repository.TypeStockHistoryRepository;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
@@ -58,6 +65,8 @@ public class StockDataLoader {
     private final Logger log = LoggerFactory.getLogger(StockDataLoader.class);
     public static final long JITA = 60003760L;
     private static final String BRAVE_MARKET_HUB_CLIENT = "295ff85e960548d080f4ca29f8ba3f87";
+    // ESI allows a handful of parallel requests per route, the region endpoint has a few hundred pages
+    private static final int PAGE_FETCH_THREADS = 8;
 
     private final TokenRepository tokenRepository;
     private final HubRepository hubRepository;
@@ -69,6 +78,11 @@ public class StockDataLoader {
     private final TypeService typeService;
     private final StockDoctrineRepository stockDoctrineRepository;
     private final Environment env;
+    private final MetricRegistry metricRegistry;
+    private final OrderBookService orderBookService;
+    private final ApplicationProperties applicationProperties;
+    private final MarketGenerationCollector marketGenerationCollector;
+    private final ExecutorService pageFetchExecutor = Executors.newFixedThreadPool(PAGE_FETCH_THREADS);
 
     public StockDataLoader(final TokenRepository tokenRepository,
                            final HubRepository hubRepository,
@@ -79,7 +93,11 @@ public class StockDataLoader {
                            final FittingRepository fittingRepository,
                            final TypeService typeService,
                            final StockDoctrineRepository stockDoctrineRepository,
-                           final Environment env) {
+                           final Environment env,
+                           final MetricRegistry metricRegistry,
+                           final OrderBookService orderBookService,
+                           final ApplicationProperties applicationProperties,
+                           final MarketGenerationCollector marketGenerationCollector) {
         this.tokenRepository = tokenRepository;
         this.hubRepository = hubRepository;
         this.requestService = requestService;
@@ -90,6 +108,10 @@ public class StockDataLoader {
         this.typeService = typeService;
         this.stockDoctrineRepository = stockDoctrineRepository;
         this.env = env;
+        this.metricRegistry = metricRegistry;
+        this.orderBookService = orderBookService;
+        this.applicationProperties = applicationProperties;
+        this.marketGenerationCollector = marketGenerationCollector;
     }
 
     @Async
@@ -100,9 +122,10 @@ public class StockDataLoader {
         }
 
         log.info("Loading data for all hubs.");
+        final Map<Long, Set<Long>> changedTypeIds = new HashMap<>();
         Stream.concat(hubRepository.findAll().stream().map(Hub::getId), Stream.of(JITA)).collect(Collectors.toList()).forEach(id -> {
             try {
-                loadData(id);
+                changedTypeIds.put(id, loadData(id));
             } catch (UnirestException e) {
                 log.error("Couldn't load market orders for {}.", id, e);
             }
@@ -110,93 +133,51 @@ public class StockDataLoader {
         log.info("Calculating stock histories.");
         hubRepository.findAll().forEach(this::doAddStockHistories);
         log.info("Calculating stock doctrines.");
-        hubRepository.findAll().forEach(this::calculateDoctrineStocks);
+        final Set<Long> jitaChanges = changedTypeIds.getOrDefault(JITA, Collections.emptySet());
+        hubRepository.findAll().forEach(hub -> {
+            // jita prices are the reference for all hubs
+            final Set<Long> hubChanges = new HashSet<>(jitaChanges);
+            hubChanges.addAll(changedTypeIds.getOrDefault(hub.getId(), Collections.emptySet()));
+            calculateDoctrineStocks(hub, hubChanges);
+        });
         log.info("Completed stock doctrines.");
     }
 
-    private void calculateDoctrineStocks(final Hub hub) {
+    /**
+     * Recomputes the doctrines that contain one of the changed types, or whose fittings changed since they were
+     * stored. Documents are replaced in place, so the doctrine list of a hub is never empty while this runs.
+     */
+    private void calculateDoctrineStocks(final Hub hub, final Set<Long> changedTypeIds) {
         final List<Doctrine> doctrines = doctrineRepository.findByHub(hub);
-        final List<Fitting> fittings = getFittingsForDoctrines(doctrines);
-        final List<Long> typeIds = fittings.stream().map(Fitting::getItems)
-                                           .flatMap(Collection::stream)
-                                           .map(FittingItem::getTypeId)
-                                           .collect(Collectors.toList());
-        final List<MarketOrder> targetOrders = marketOrderRepository
-            .findByLocationIdAndTypeIdInAndIsBuyOrderOrderByPriceAsc(hub.getId(), typeIds, false);
-        final List<MarketOrder> jitaOrders = marketOrderRepository
-            .findByLocationIdAndTypeIdInAndIsBuyOrderOrderByPriceAsc(JITA, typeIds, false);
-        stockDoctrineRepository.deleteByHub(hub);
-        doctrines.forEach(doctrine -> {
-            Availability lowestAvailability = Availability.WELL_PRICED;
-            final Map<Long, Long> itemTargetQuantities = new HashMap<>();
-            for (final Entry<String, Integer> stringIntegerEntry : doctrine.getFittingsQuantities().entrySet()) {
-                final String fittingId = stringIntegerEntry.getKey();
-                final Integer fittingQuantity = stringIntegerEntry.getValue();
-                addItemQuantities(fittings, fittingId, fittingQuantity, itemTargetQuantities);
-            }
-
-            final List<StockItem> stockItems = new ArrayList<>();
-            for (Entry<Long, Long> itemQuantity : itemTargetQuantities.entrySet()) {
-                final long typeId = itemQuantity.getKey();
-                final long stockedQuantity = getStockedQuantity(typeId, targetOrders);
-                final long targetQuantity = itemQuantity.getValue();
-                final Optional<Double> targetPrice = getBestPrice(typeId, targetOrders);
-                final Optional<Double> jitaPrice = getBestPrice(typeId, jitaOrders);
-                final Availability availability = getAvailability(stockedQuantity, targetQuantity, targetPrice, jitaPrice);
-                if (availability != Availability.WELL_PRICED && lowestAvailability != Availability.MISSING) {
-                    // this should reduce to overpriced, and once reduced to missing never be called again
-                    lowestAvailability = availability;
-                }
-                stockItems.add(new StockItem(typeId, typeService.getNameByTypeId(typeId), availability, stockedQuantity, targetQuantity));
-            }
-            stockDoctrineRepository.save(new StockDoctrine(lowestAvailability, doctrine.getName(), doctrine.getHub(), stockItems));
-        });
-    }
-
-    private void addItemQuantities(final List<Fitting> fittings, final String fittingId,
-                                   final Integer fittingQuantity, final Map<Long, Long> itemQuantities) {
-        getFitting(fittingId, fittings).ifPresent(fitting -> fitting.getItems().forEach(item -> {
-            if (!itemQuantities.containsKey(item.getTypeId())) {
-                itemQuantities.put(item.getTypeId(), 0L);
-            }
-            itemQuantities.put(item.getTypeId(), itemQuantities.get(item.getTypeId()) + item.getQuantity() * fittingQuantity);
-        }));
-    }
-
-    private Optional<Double> getBestPrice(final long typeId, final List<MarketOrder> targetOrders) {
-        return targetOrders.stream().filter(order -> typeId == order.getTypeId()).findFirst().map(MarketOrder::getPrice);
-    }
-
-    private Availability getAvailability(final long stockedQuantity, final long targetQuantity,
-                                         final Optional<Double> targetPrice,
-                                         final Optional<Double> jitaPrice) {
-        if (stockedQuantity < targetQuantity || !targetPrice.isPresent() || !jitaPrice.isPresent()) {
-            return Availability.MISSING;
-        } else {
-            final double overpricedBorder = calcOverpricedBorder(jitaPrice.get());
-            if (overpricedBorder < targetPrice.get()) {
-                return Availability.OVER_PRICED;
-            } else {
-                return Availability.WELL_PRICED;
+        final DoctrineStockCalculator calculator = new DoctrineStockCalculator(orderBookService.getBook(hub.getId()),
+                                                                               orderBookService.getBook(JITA),
+                                                                               getFittingsForDoctrines(doctrines),
+                                                                               typeService::getNameByTypeId);
+        final Map<String, StockDoctrine> storedDoctrines = new HashMap<>();
+        stockDoctrineRepository.findByHub(hub).forEach(stored -> storedDoctrines.put(stored.getId(), stored));
+
+        final List<StockDoctrine> recomputed = new ArrayList<>();
+        for (final Doctrine doctrine : doctrines) {
+            final StockDoctrine stored = storedDoctrines.remove(hub.getId() + doctrine.getName());
+            final Map<Long, Long> targetQuantities = calculator.getTargetQuantities(doctrine);
+            if (null == stored || !hasTargetQuantities(stored, targetQuantities)
+                || targetQuantities.keySet().stream().anyMatch(changedTypeIds::contains)) {
+                recomputed.add(calculator.calculate(doctrine));
             }
         }
+        stockDoctrineRepository.save(recomputed);
+        // whatever is left belongs to doctrines that were removed
+        stockDoctrineRepository.delete(storedDoctrines.values());
+        log.debug("Recomputed {} of {} doctrines for {} and removed {}.", recomputed.size(), doctrines.size(),
+                  hub.getId(), storedDoctrines.size());
     }
 
-    private static double calcOverpricedBorder(final Double price) {
-        return price * (1 + (8 / (Math.log(price) + 3)));
-    }
-
-    private long getStockedQuantity(final long typeId, final List<MarketOrder> targetOrders) {
-        return targetOrders.stream().filter(order -> typeId == order.getTypeId()).mapToLong(MarketOrder::getVolumeRemain).sum();
-    }
-
-    private Optional<Fitting> getFitting(final String fittingId, final List<Fitting> fittings) {
-        for (final Fitting fitting : fittings) {
-            if (fittingId.equals(fitting.getId())) {
-                return Optional.of(fitting);
-            }
+    private static boolean hasTargetQuantities(final StockDoctrine stored, final Map<Long, Long> targetQuantities) {
+        if (null == stored.getStockItems() || stored.getStockItems().size() != targetQuantities.size()) {
+            return false;
         }
-        return Optional.empty();
+        return stored.getStockItems().stream()
+                     .allMatch(item -> Objects.equals(targetQuantities.get(item.getTypeId()), item.getTargetStock()));
     }
 
     private List<Fitting> getFittingsForDoctrines(final List<Doctrine> doctrines) {
@@ -209,132 +190,156 @@ public class StockDataLoader {
     }
 
     private void doAddStockHistories(final Hub hub) {
-        final Map<Long, Long> typeIdStocks = new HashMap<>();
         log.debug("Loading market order quantities for {}", hub);
         final Set<Long> doctrineTypeIds = new HashSet<>();
         doctrineRepository.findByHub(hub).forEach(doctrine -> {
             final List<String> fittingIds = doctrine.getFittingsQuantities().entrySet().stream().map(Entry::getKey).collect(Collectors.toList());
             fittingRepository.findAllByIdIn(fittingIds).forEach(fitting -> fitting.getItems().forEach(item -> doctrineTypeIds.add(item.getTypeId())));
         });
-        marketOrderRepository.findByLocationIdAndIsBuyOrder(hub.getId(), false)
-                             .stream().filter(order -> doctrineTypeIds.contains(order.getTypeId()))
-                             .forEach(order -> {
-                                 final Long typeId = order.getTypeId();
-                                 if (!typeIdStocks.containsKey(typeId)) {
-                                     typeIdStocks.put(typeId, 0L);
-                                 }
-                                 typeIdStocks.put(typeId, typeIdStocks.get(typeId) + order.getVolumeRemain());
-                             });
-        doctrineTypeIds.forEach(id -> {
-            if (!typeIdStocks.containsKey(id)) {
-                typeIdStocks.put(id, 0L);
-            }
-        });
+        final OrderBook book = orderBookService.getBook(hub.getId());
+        final LocalDate today = LocalDate.now();
+        final Map<Long, TypeStockHistory> todaysHistories = new HashMap<>();
+        stockHistoryRepository.findByDateAndHub(today, hub).forEach(history -> todaysHistories.put(history.getTypeId(), history));
         log.debug("Calculating TypeStockHistories for {}.", hub);
-        typeIdStocks.forEach((typeId, quantity) -> {
-            final List<MarketOrder> sellOrdersForType = marketOrderRepository
-                .findByLocationIdAndIsBuyOrderAndTypeIdOrderByPriceAsc(hub.getId(), false, typeId);
-            final Optional<TypeStockHistory> optional = stockHistoryRepository.findByDateAndTypeIdAndHub(
-                LocalDate.now(), typeId, hub);
-            final TypeStockHistory stockHistory = optional.orElseGet(() -> new TypeStockHistory(typeId, hub));
-            if (!sellOrdersForType.isEmpty()) {
-                setPrices(sellOrdersForType.get(0).getPrice(), stockHistory);
-            }
-            setQuantities(quantity, stockHistory);
+        final List<TypeStockHistory> changedHistories = new ArrayList<>();
+        doctrineTypeIds.forEach(typeId -> {
+            final long quantity = book.getSellVolume(typeId);
+            final TypeStockHistory stockHistory = todaysHistories.computeIfAbsent(typeId, id -> new TypeStockHistory(id, hub));
+            boolean changed = null == stockHistory.getId() || !Objects.equals(stockHistory.getLatestQuantity(), quantity);
+            changed |= book.getBestAsk(typeId).map(price -> setPrices(price, stockHistory)).orElse(false);
+            changed |= setQuantities(quantity, stockHistory);
             stockHistory.setLatestQuantity(quantity);
-            stockHistoryRepository.save(stockHistory);
+            if (changed) {
+                changedHistories.add(stockHistory);
+            }
         });
+        stockHistoryRepository.bulkUpsert(changedHistories);
+        log.debug("Wrote {} of {} TypeStockHistories for {}.", changedHistories.size(), doctrineTypeIds.size(), hub);
     }
 
-    private void setQuantities(final Long quantity, final TypeStockHistory stockHistory) {
-        if (stockHistory.getMinQuantity() != null && stockHistory.getMinQuantity() > quantity) {
-            stockHistory.setMinQuantity(quantity);
-        } else if (stockHistory.getMaxQuantity() != null && stockHistory.getMaxQuantity() < quantity) {
-            stockHistory.setMaxQuantity(quantity);
-        }
-        if (stockHistory.getMinQuantity() == null) {
+    /**
+     * @return true if the min or max quantity changed
+     */
+    private boolean setQuantities(final Long quantity, final TypeStockHistory stockHistory) {
+        boolean changed = false;
+        if (stockHistory.getMinQuantity() == null || stockHistory.getMinQuantity() > quantity) {
             stockHistory.setMinQuantity(quantity);
+            changed = true;
         }
-        if (stockHistory.getMaxQuantity() == null) {
+        if (stockHistory.getMaxQuantity() == null || stockHistory.getMaxQuantity() < quantity) {
             stockHistory.setMaxQuantity(quantity);
+            changed = true;
         }
+        return changed;
     }
 
-    private void setPrices(final Double price, final TypeStockHistory stockHistory) {
-        if (stockHistory.getMinPrice() != null && stockHistory.getMinPrice() > price) {
-            stockHistory.setMinPrice(price);
-        } else if (stockHistory.getMaxPrice() != null && stockHistory.getMaxPrice() < price) {
-            stockHistory.setMaxPrice(price);
-        }
-        if (stockHistory.getMinPrice() == null) {
+    /**
+     * @return true if the min or max price changed
+     */
+    private boolean setPrices(final Double price, final TypeStockHistory stockHistory) {
+        boolean changed = false;
+        if (stockHistory.getMinPrice() == null || stockHistory.getMinPrice() > price) {
             stockHistory.setMinPrice(price);
+            changed = true;
         }
-        if (stockHistory.getMaxPrice() == null) {
+        if (stockHistory.getMaxPrice() == null || stockHistory.getMaxPrice() < price) {
             stockHistory.setMaxPrice(price);
+            changed = true;
         }
+        return changed;
     }
 
-    private void loadData(final Long locationId) throws UnirestException {
+    /**
+     * @return the typeIds whose best sell price or stocked volume changed at the location
+     */
+    private Set<Long> loadData(final Long locationId) throws UnirestException {
         final Token token = tokenRepository.findByClientId(BRAVE_MARKET_HUB_CLIENT).get(0);
         String authToken = requestService.getAccessToken(token);
-        final List<MarketOrder> orders = getOrders(authToken, locationId);
-        if (!orders.isEmpty()) {
-            marketOrderRepository.deleteByLocationId(locationId);
-            marketOrderRepository.save(orders);
-            log.info("Updated {} market orders for {}.", orders.size(), locationId);
+        final MarketSnapshot.Builder orders = getOrders(authToken, locationId);
+        if (null != orders && orders.size() > 0) {
+            final MarketSnapshot snapshot = orders.build(locationId, Instant.now(),
+                                                         applicationProperties.getMarket().isOffHeap());
+            log.info("Snapshot for {} holds {} market orders in {} bytes.", locationId, snapshot.size(),
+                     snapshot.getSizeInBytes());
+            final MarketOrderSyncResult result = marketOrderRepository.syncLocation(snapshot);
+            metricRegistry.counter(name(StockDataLoader.class, "orders", String.valueOf(locationId), "inserted")).inc(result.getInserted());
+            metricRegistry.counter(name(StockDataLoader.class, "orders", String.valueOf(locationId), "updated")).inc(result.getUpdated());
+            metricRegistry.counter(name(StockDataLoader.class, "orders", String.valueOf(locationId), "deleted")).inc(result.getDeleted());
+            log.info("Synced {} market orders for {} into generation {}: {} inserted, {} updated, {} deleted.",
+                     snapshot.size(), locationId, result.getGeneration(), result.getInserted(), result.getUpdated(),
+                     result.getDeleted());
+            marketGenerationCollector.collect(locationId, result.getGeneration());
+            final Set<Long> changedTypeIds = orderBookService.update(snapshot);
+            log.info("{} types changed their price or volume at {}.", changedTypeIds.size(), locationId);
+            return changedTypeIds;
         } else {
             log.warn("No data could be loaded for {}.", locationId);
+            return Collections.emptySet();
         }
     }
 
-    private List<MarketOrder> getOrders(final String token, final Long target) throws UnirestException {
-        final List<MarketOrder> orders = new ArrayList<>();
-        int previousCount = 1;
-        int pageCount = 1;
-        while(previousCount > 0) {
-            final JSONArray pagedOrders = getPagedOrders(token, pageCount++, target);
-            if (null == pagedOrders) {
-                return Collections.emptyList();
+    /**
+     * @return the orders of all pages, or null if a page couldn't be loaded
+     */
+    private MarketSnapshot.Builder getOrders(final String token, final Long target) throws UnirestException {
+        final Timer.Context fetchTimer = metricRegistry.timer(name(StockDataLoader.class, "orders", String.valueOf(target), "fetch")).time();
+        try {
+            final String baseUrl = makeBaseUrl(token, target);
+            final MarketPage firstPage = getPagedOrders(baseUrl, 1, target);
+            if (null == firstPage) {
+                return null;
             }
-            previousCount = pagedOrders.length();
-            final List<MarketOrder> ordersForPage = transformPagedOrders(pagedOrders, target);
-            orders.addAll(ordersForPage);
-        }
-        return orders;
-    }
-
-    private List<MarketOrder> transformPagedOrders(final JSONArray orderArray, final Long target) {
-        final List<MarketOrder> orders = new ArrayList<>();
-        for (int i = 0; i < orderArray.length(); i++) {
-            final JSONObject jsonObject = orderArray.getJSONObject(i);
-            final MarketOrder order = new MarketOrder();
-
-            // the payload one time didn't contain the location id
-            if (!jsonObject.has("location_id")) {
-                log.warn("A market order did not contain a locationId. {}", order);
-                continue;
+            if (firstPage.pageCount < 1) {
+                log.debug("No X-Pages header for {}, falling back to sequential paging.", target);
+                return getOrdersSequentially(baseUrl, firstPage, target);
             }
+            metricRegistry.histogram(name(StockDataLoader.class, "orders", String.valueOf(target), "pages")).update(firstPage.pageCount);
 
-            order.setLocationId(jsonObject.getLong("location_id"));
-            order.setTypeId(jsonObject.getLong("type_id"));
+            final List<Future<MarketPage>> remainingPages = new ArrayList<>();
+            for (int page = 2; page <= firstPage.pageCount; page++) {
+                final int currentPage = page;
+                remainingPages.add(pageFetchExecutor.submit(() -> getPagedOrders(baseUrl, currentPage, target)));
+            }
 
-            if (Objects.equals(JITA, target) && !Objects.equals(JITA, order.getLocationId())) {
-                continue;
+            // merge in page order, so the result matches a sequential walk
+            final MarketSnapshot.Builder orders = firstPage.orders;
+            for (final Future<MarketPage> future : remainingPages) {
+                final MarketPage page = future.get();
+                if (null == page) {
+                    remainingPages.forEach(remaining -> remaining.cancel(true));
+                    return null;
+                }
+                orders.addAll(page.orders);
+            }
+            return orders;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while loading market orders for {}.", target);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnirestException) {
+                throw (UnirestException) e.getCause();
             }
+            throw new IllegalStateException("Failed to load market orders for " + target, e.getCause());
+        } finally {
+            fetchTimer.stop();
+        }
+    }
 
-            order.setDuration(jsonObject.getInt("duration"));
-            order.setMinVolume(jsonObject.getLong("min_volume"));
-            order.setPrice(jsonObject.getDouble("price"));
-            order.setBuyOrder(jsonObject.getBoolean("is_buy_order"));
-            order.setVolumeTotal(jsonObject.getLong("volume_total"));
-            order.setRange(jsonObject.getString("range"));
-            order.setIssued(Instant.parse(jsonObject.getString("issued")));
-            order.setOrderId(jsonObject.getLong("order_id"));
-            order.setVolumeRemain(jsonObject.getLong("volume_remain"));
-            order.setTimestamp(Instant.now());
-
-            orders.add(order);
+    private MarketSnapshot.Builder getOrdersSequentially(final String baseUrl, final MarketPage firstPage,
+                                                         final Long target) throws UnirestException {
+        final MarketSnapshot.Builder orders = firstPage.orders;
+        int previousCount = firstPage.rawCount;
+        int pageCount = 2;
+        while(previousCount > 0) {
+            final MarketPage pagedOrders = getPagedOrders(baseUrl, pageCount++, target);
+            if (null == pagedOrders) {
+                return null;
+            }
+            previousCount = pagedOrders.rawCount;
+            orders.addAll(pagedOrders.orders);
         }
+        metricRegistry.histogram(name(StockDataLoader.class, "orders", String.valueOf(target), "pages")).update(pageCount - 2);
         return orders;
     }
 
@@ -343,30 +348,35 @@ public class StockDataLoader {
         .toFormatter()
         .withZone(ZoneOffset.UTC);
 
-    private JSONArray getPagedOrders(final String token, final int page, final long target) throws UnirestException {
-        final String url = makeUrl(token, page, target);
-        HttpResponse<JsonNode> response = Unirest.get(url).header("User-Agent", "Eve: Rihan Shazih").asJson();
-
-        if (response.getStatus() != 200) {
-            log.warn("{} returned status code {}.", url, response.getStatus());
+    private MarketPage getPagedOrders(final String baseUrl, final int page, final long target) throws UnirestException {
+        final String url = baseUrl + "&page=" + page;
+        final Optional<EsiResponse> response = requestService.getCached(EsiEndpoint.MARKET_ORDERS, url);
+        if (!response.isPresent()) {
             return null;
         }
 
         log.debug("Loading page {} for {}", page, target);
-        JSONArray array = response.getBody().getArray();
-        log.debug("{} page {} contains {} orders", target, page, array.length());
-        return array;
+        final MarketSnapshot.Builder orders = MarketSnapshot.builder();
+        final int rawCount;
+        try (InputStream body = new ByteArrayInputStream(response.get().getBody())) {
+            // the region endpoint also returns orders of all other stations in The Forge
+            rawCount = MarketOrderDecoder.decode(body, Objects.equals(JITA, target) ? JITA : null, orders);
+        } catch (IOException e) {
+            throw new UnirestException(e);
+        }
+        log.debug("{} page {} contains {} orders", target, page, rawCount);
+        return new MarketPage(orders, rawCount, response.get().getPageCount());
     }
 
-    private String makeUrl(final String token, int page, final Long target) {
+    private String makeBaseUrl(final String token, final Long target) {
         final List<Long> hubIds = hubRepository.findAll().stream().map(Hub::getId).collect(Collectors.toList());
         if (hubIds.contains(target)) {
-            return "https://esi.evetech.net/v1/markets/structures/" + target
+            return applicationProperties.getEsi().getBaseUrl() + "/v1/markets/structures/" + target
                    + "/?datasource=tranquility"
-                   + "&page=" + page
                    + "&token=" + token;
         } else if (Objects.equals(JITA, target)) {
-            return "https://esi.evetech.net/v1/markets/10000002/orders/?datasource=tranquility&order_type=all&page=" + page;
+            return applicationProperties.getEsi().getBaseUrl()
+                   + "/v1/markets/10000002/orders/?datasource=tranquility&order_type=all";
         } else {
             throw new IllegalArgumentException("Unknown target: " + target);
         }
@@ -375,4 +385,21 @@ public class StockDataLoader {
     private Instant parseInstant(final String dateString) {
         return FMT.parse(dateString, Instant::from);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        pageFetchExecutor.shutdownNow();
+    }
+
+    private static final class MarketPage {
+        private final MarketSnapshot.Builder orders;
+        private final int rawCount;
+        private final int pageCount;
+
+        private MarketPage(final MarketSnapshot.Builder orders, final int rawCount, final int pageCount) {
+            this.orders = orders;
+            this.rawCount = rawCount;
+            this.pageCount = pageCount;
+        }
+    }
 }
@@ -0,0 +1,418 @@
+package com.thebuyback.eve.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * A bounded, thread safe cache that evicts by frequency and recency (W-TinyLFU).
+ *
+ * New entries start in a small LRU window. Entries that leave the window only replace an entry of the main space if
+ * they were requested more often, as estimated by a count-min sketch that slowly forgets old requests. The main space
+ * is a segmented LRU: entries that are hit again move from probation to the protected segment. One-off scans
+ * therefore don't push out the entries that are used all the time.
+ *
+ * Reads don't take a lock. They are recorded in a buffer that is applied to the eviction policy whenever the lock is
+ * free; if the buffer is full, the read is not recorded.
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int READ_BUFFER_SIZE = 128;
+
+    private final ConcurrentMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    // the keys that are being loaded by computeIfAbsent
+    private final ConcurrentMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingReads = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+
+    // guarded by the eviction lock
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+    private final int maxWindow;
+    private final int maxMain;
+    private final int maxProtected;
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+
+    /**
+     * @param name the name of the cache in the metric registry
+     */
+    public TinyLfuCache(final String name, final int capacity, final MetricRegistry metricRegistry) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity must be at least 2, but is " + capacity);
+        }
+        maxWindow = Math.max(1, capacity / 100);
+        maxMain = capacity - maxWindow;
+        maxProtected = maxMain * 4 / 5;
+        sketch = new FrequencySketch(capacity);
+        hits = metricRegistry.meter(name(TinyLfuCache.class, name, "hits"));
+        misses = metricRegistry.meter(name(TinyLfuCache.class, name, "misses"));
+        evictions = metricRegistry.meter(name(TinyLfuCache.class, name, "evictions"));
+        metricRegistry.register(name(TinyLfuCache.class, name, "size"), (Gauge<Integer>) data::size);
+    }
+
+    /**
+     * @return the cached value, or null
+     */
+    public V get(final K key) {
+        final Node<K, V> node = data.get(key);
+        if (null == node) {
+            misses.mark();
+            return null;
+        }
+        hits.mark();
+        afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it. Concurrent calls for the same key load it only once. Nothing
+     * is cached if the loader returns null. The loader runs outside of the map, a slow load only delays the callers
+     * of the same key. It must not load the same key again.
+     */
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> loader) {
+        final Node<K, V> cached = data.get(key);
+        if (null != cached) {
+            hits.mark();
+            afterRead(cached);
+            return cached.value;
+        }
+        misses.mark();
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> running = loading.putIfAbsent(key, load);
+        if (null != running) {
+            return await(running);
+        }
+        try {
+            // another caller may have finished loading the key since it was looked up
+            final Node<K, V> loaded = data.get(key);
+            final V value = null != loaded ? loaded.value : load(key, loader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private V load(final K key, final Function<? super K, ? extends V> loader) {
+        final V value = loader.apply(key);
+        if (null == value) {
+            return null;
+        }
+        final Node<K, V> node = new Node<>(key, value);
+        final Node<K, V> existing = data.putIfAbsent(key, node);
+        if (null != existing) {
+            // the key was put while it was loading
+            return existing.value;
+        }
+        afterWrite(node);
+        return value;
+    }
+
+    private static <V> V await(final CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void put(final K key, final V value) {
+        final Node<K, V> node = new Node<>(key, value);
+        final Node<K, V> existing = data.putIfAbsent(key, node);
+        if (null == existing) {
+            afterWrite(node);
+        } else {
+            existing.value = value;
+            afterRead(existing);
+        }
+    }
+
+    public void invalidate(final K key) {
+        final Node<K, V> node = data.remove(key);
+        if (null != node) {
+            evictionLock.lock();
+            try {
+                unlink(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Visits all cached entries without counting it as reads.
+     */
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        data.forEach((key, node) -> consumer.accept(key, node.value));
+    }
+
+    private void afterRead(final Node<K, V> node) {
+        if (pendingReads.get() < READ_BUFFER_SIZE) {
+            pendingReads.incrementAndGet();
+            readBuffer.offer(node);
+        }
+        if (evictionLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterWrite(final Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            drainReads();
+            // the node may have been invalidated in the meantime
+            if (data.get(node.key) != node) {
+                return;
+            }
+            sketch.increment(node.key);
+            window.addLast(node, QueueType.WINDOW);
+            while (window.size > maxWindow) {
+                admit(window.first);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReads() {
+        Node<K, V> node;
+        while (null != (node = readBuffer.poll())) {
+            pendingReads.decrementAndGet();
+            onAccess(node);
+        }
+    }
+
+    private void onAccess(final Node<K, V> node) {
+        if (null == node.queue) {
+            // not added yet or already removed
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.addLast(node, QueueType.PROTECTED);
+                if (protectedQueue.size > maxProtected) {
+                    final Node<K, V> demoted = protectedQueue.first;
+                    protectedQueue.remove(demoted);
+                    probation.addLast(demoted, QueueType.PROBATION);
+                }
+                break;
+            default:
+                protectedQueue.moveToLast(node);
+        }
+    }
+
+    /**
+     * Moves the candidate from the window to the main space. If the main space is full, either the candidate or the
+     * least recently used entry of the main space is evicted, whichever was requested less often.
+     */
+    private void admit(final Node<K, V> candidate) {
+        window.remove(candidate);
+        if (probation.size + protectedQueue.size < maxMain) {
+            probation.addLast(candidate, QueueType.PROBATION);
+            return;
+        }
+        final Node<K, V> victim = null != probation.first ? probation.first : protectedQueue.first;
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evict(victim);
+            probation.addLast(candidate, QueueType.PROBATION);
+        } else {
+            candidate.queue = null;
+            evict(candidate);
+        }
+    }
+
+    private void evict(final Node<K, V> node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            evictions.mark();
+        }
+    }
+
+    private void unlink(final Node<K, V> node) {
+        if (null == node.queue) {
+            return;
+        }
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protectedQueue.remove(node);
+        }
+        node.queue = null;
+    }
+
+    private enum QueueType {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private volatile V value;
+        // guarded by the eviction lock
+        private QueueType queue;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A doubly linked list from the least to the most recently used node.
+     */
+    private static final class AccessQueue<K, V> {
+
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private int size;
+
+        private void addLast(final Node<K, V> node, final QueueType type) {
+            node.queue = type;
+            node.previous = last;
+            node.next = null;
+            if (null == last) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        private void remove(final Node<K, V> node) {
+            if (null == node.previous) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (null == node.next) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToLast(final Node<K, V> node) {
+            if (node != last) {
+                final QueueType type = node.queue;
+                remove(node);
+                addLast(node, type);
+            }
+        }
+    }
+
+    /**
+     * Estimates how often a key was requested with four rows of counters that saturate at 15. All counters are halved
+     * after ten times as many increments as the cache holds entries, so that old popularity fades.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x97cb3127, 0xb1f8a4c3, 0x5ad64f11, 0xe3c1b56d};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(final int capacity) {
+            int width = 16;
+            while (width < capacity) {
+                width <<= 1;
+            }
+            table = new byte[DEPTH][width];
+            mask = width - 1;
+            sampleSize = 10 * capacity;
+        }
+
+        private void increment(final Object key) {
+            final int hash = spread(key.hashCode());
+            for (int row = 0; row < DEPTH; row++) {
+                final int index = indexOf(hash, row);
+                if (table[row][index] < MAX_COUNT) {
+                    table[row][index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(final Object key) {
+            final int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (final byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(final int hash, final int row) {
+            final int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(final int hash) {
+            final int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.thebuyback.eve.domain.TypeResolveException;
+import com.thebuyback.eve.service.dto.esi.EsiCategory;
+import com.thebuyback.eve.service.dto.esi.EsiGroup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The names of all inventory groups and categories and which category a group belongs to. The tables are loaded in
+ * the background, lookups don't make requests unless a group or category was added after the last load.
+ */
+@Component
+public class TypeHierarchy {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final JsonRequestService requestService;
+    // both tables are replaced as a whole after each load, they start with the tables of the snapshot
+    private volatile HierarchyTable groups;
+    private volatile HierarchyTable categories;
+    // groups and categories that were requested because they were missing from the tables
+    private final Map<Long, EsiGroup> missingGroups = new ConcurrentHashMap<>();
+    private final Map<Long, String> missingCategories = new ConcurrentHashMap<>();
+
+    public TypeHierarchy(final JsonRequestService requestService, final DictionarySnapshot snapshot) {
+        this.requestService = requestService;
+        groups = snapshot.getGroups();
+        categories = snapshot.getCategories();
+    }
+
+    /**
+     * Starts a load and returns right away. The requests are composed instead of joined, so the load doesn't hold a
+     * thread while it waits for ESI, the tables are replaced once all requests have completed.
+     */
+    @Scheduled(fixedDelay = 21_600_000L) // 6 hours
+    public void loadHierarchy() {
+        requestService.getCategoryIdsAsync()
+            .thenCompose(categoryIds -> {
+                if (!categoryIds.isPresent()) {
+                    log.warn("Failed to load the category ids, keeping {} categories and {} groups.",
+                             categories.size(), groups.size());
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                final Map<Long, CompletableFuture<Optional<EsiCategory>>> categoryRequests = new HashMap<>();
+                categoryIds.get().forEach(id -> categoryRequests.put(id, requestService.getCategoryInfoAsync(id)));
+                return allOf(categoryRequests.values()).thenCompose(done -> loadGroups(categoryRequests));
+            })
+            .exceptionally(e -> {
+                log.error("Failed to load the group and category hierarchy.", e);
+                return null;
+            });
+    }
+
+    private CompletableFuture<Void> loadGroups(
+        final Map<Long, CompletableFuture<Optional<EsiCategory>>> categoryRequests) {
+        final HierarchyTable.Builder categoryTable = new HierarchyTable.Builder();
+        final HierarchyTable.Builder groupTable = new HierarchyTable.Builder();
+        final Map<Long, CompletableFuture<Optional<EsiGroup>>> groupRequests = new HashMap<>();
+        // the requests have completed, failures were logged and mapped to an empty result
+        categoryRequests.forEach((categoryId, request) -> {
+            final Optional<EsiCategory> category = request.join();
+            if (category.isPresent()) {
+                categoryTable.add(categoryId, category.get().getCategoryName(), 0L);
+                category.get().getGroups()
+                        .forEach(id -> groupRequests.put(id, requestService.getGroupInfoAsync(id)));
+            } else {
+                keepRow(categories, categoryTable, categoryId);
+                // the groups of the category are unknown, they are kept as well
+                keepChildren(groups, groupTable, categoryId);
+            }
+        });
+
+        return allOf(groupRequests.values()).thenAccept(done -> {
+            final List<Long> failedGroups = new ArrayList<>();
+            groupRequests.forEach((groupId, request) -> {
+                final Optional<EsiGroup> group = request.join();
+                if (group.isPresent()) {
+                    groupTable.add(groupId, group.get().getName(), group.get().getCategoryId());
+                } else {
+                    keepRow(groups, groupTable, groupId);
+                    failedGroups.add(groupId);
+                }
+            });
+
+            categories = categoryTable.build();
+            groups = groupTable.build();
+            log.info("Loaded {} of {} categories and {} of {} groups.", categories.size(), categoryRequests.size(),
+                     groups.size(), groupRequests.size());
+            if (!failedGroups.isEmpty()) {
+                log.warn("Failed to load the groups {}.", failedGroups);
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> allOf(final Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Copies a row of the previous load, so that a failed request doesn't drop it.
+     */
+    private static void keepRow(final HierarchyTable previous, final HierarchyTable.Builder next, final long id) {
+        final String name = previous.getName(id);
+        if (null != name) {
+            next.add(id, name, previous.getParent(id));
+        }
+    }
+
+    private static void keepChildren(final HierarchyTable previous, final HierarchyTable.Builder next,
+                                     final long parent) {
+        previous.forEach((id, name, rowParent) -> {
+            if (rowParent == parent) {
+                next.add(id, name, rowParent);
+            }
+        });
+    }
+
+    HierarchyTable getGroups() {
+        return groups;
+    }
+
+    HierarchyTable getCategories() {
+        return categories;
+    }
+
+    public String getGroupName(final long groupId) {
+        final String name = groups.getName(groupId);
+        return null != name ? name : getMissingGroup(groupId).getName();
+    }
+
+    public long getCategoryId(final long groupId) {
+        final Long categoryId = groups.getParent(groupId);
+        return null != categoryId ? categoryId : getMissingGroup(groupId).getCategoryId();
+    }
+
+    public String getCategoryName(final long categoryId) {
+        final String name = categories.getName(categoryId);
+        return null != name ? name : missingCategories.computeIfAbsent(categoryId, id -> requestService
+            .getCategoryInfo(id).orElseThrow(() -> new TypeResolveException(id)).getCategoryName());
+    }
+
+    private EsiGroup getMissingGroup(final long groupId) {
+        return missingGroups.computeIfAbsent(groupId, id -> requestService.getGroupInfo(id).orElseThrow(
+            () -> new TypeResolveException(id)));
+    }
+}
@@ -1,22 +1,39 @@
 package com.thebuyback.eve.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
-import com.mashape.unirest.http.JsonNode;
+import javax.annotation.PostConstruct;
+
 import com.thebuyback.eve.domain.Type;
 import com.thebuyback.eve.domain.TypeResolveException;
 import com.thebuyback.eve.repository.TypeRepository;
+import com.thebuyback.eve.service.dto.esi.EsiSearchResult;
+import com.thebuyback.eve.service.dto.esi.EsiType;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+/**
+ * Resolves types by id or name. All types that are stored are loaded once after startup, lookups of known types don't
+ * query the database. Names are looked up case insensitively. Groups and categories are looked up in the
+ * {@link TypeHierarchy}.
+ */
 @Component
 public class TypeService {
 
@@ -24,12 +41,50 @@ public class TypeService {
 
     private final TypeRepository repository;
     private final JsonRequestService requestService;
-    private final LRUCache<Long, Type> cache;
+    private final TypeHierarchy hierarchy;
+    // answers lookups until the types are preloaded
+    private final DictionarySnapshot snapshot;
+    // the types that were stored at startup, never modified once published
+    private volatile LongObjectMap<Type> preloaded = new LongObjectMap<>(0);
+    private volatile boolean preloadComplete;
+    // the types that were resolved after startup
+    private final Map<Long, Type> resolved = new ConcurrentHashMap<>();
+    // the lower case names of all known types
+    private final Map<String, Long> typeIdsByName = new ConcurrentHashMap<>();
 
-    public TypeService(final TypeRepository repository, final JsonRequestService requestService) {
+    public TypeService(final TypeRepository repository, final JsonRequestService requestService,
+                       final TypeHierarchy hierarchy, final DictionarySnapshot snapshot) {
         this.repository = repository;
         this.requestService = requestService;
-        cache = new LRUCache<Long, Type>(1000);
+        this.hierarchy = hierarchy;
+        this.snapshot = snapshot;
+    }
+
+    @PostConstruct
+    void indexSnapshot() {
+        snapshot.forEachTypeName((typeName, typeId) -> typeIdsByName.put(normalize(typeName), typeId));
+        log.info("Indexed {} type names from the snapshot.", snapshot.getTypeCount());
+    }
+
+    /**
+     * Loads all stored types once the application has started. Until then, lookups are answered by the snapshot.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        final List<Type> types = repository.findAll();
+        final LongObjectMap<Type> map = new LongObjectMap<>(types.size());
+        types.forEach(type -> {
+            map.put(type.getTypeId(), type);
+            indexName(type);
+        });
+        preloaded = map;
+        preloadComplete = true;
+        log.info("Preloaded {} types.", map.size());
+    }
+
+    boolean isPreloadComplete() {
+        return preloadComplete;
     }
 
     public String getNameByTypeId(long typeId) {
@@ -46,7 +101,37 @@ public class TypeService {
     }
 
     private Type getTypeFromCache(long typeId) {
-        return cache.computeIfAbsent(typeId, this::getType);
+        final Type type = getKnownType(typeId);
+        // resolved outside of the map, concurrent lookups of the same type may both load it
+        return null != type ? type : addResolved(getType(typeId));
+    }
+
+    /**
+     * @return the type if it was loaded already, null otherwise
+     */
+    private Type getKnownType(long typeId) {
+        Type type = preloaded.get(typeId);
+        if (null == type) {
+            type = resolved.get(typeId);
+        }
+        return null != type ? type : snapshot.getType(typeId);
+    }
+
+    List<Type> getKnownTypes() {
+        final List<Type> types = new ArrayList<>(preloaded.size() + resolved.size());
+        preloaded.forEach((type, typeId) -> types.add(type));
+        types.addAll(resolved.values());
+        return types;
+    }
+
+    private void indexName(final Type type) {
+        if (null != type.getTypeName()) {
+            typeIdsByName.put(normalize(type.getTypeName()), type.getTypeId());
+        }
+    }
+
+    private static String normalize(final String typeName) {
+        return typeName.trim().toLowerCase(Locale.ROOT);
     }
 
     private Type getType(long typeId) {
@@ -56,108 +141,137 @@ public class TypeService {
         if (optional.isPresent()) {
             type = optional.get();
         } else {
-            final Optional<JsonNode> responseNode = requestService.getTypeInfo(typeId);
-            if (!responseNode.isPresent()) {
+            final Optional<EsiType> response = requestService.getTypeInfo(typeId);
+            if (!response.isPresent()) {
                 throw new TypeResolveException(typeId);
             }
-            final JSONObject responseObj = responseNode.get().getObject();
-            final String name = responseObj.getString("name");
-            final long groupId = responseObj.getLong("group_id");
-            final double volume = responseObj.getDouble("volume");
-            Double packagedVolume = null;
-            if (responseObj.has("packaged_volume")) {
-                packagedVolume = responseObj.getDouble("packaged_volume");
-            }
-            type = new Type(typeId, name, groupId, null, null, null, volume, packagedVolume);
+            type = toType(typeId, response.get());
             repository.save(type);
         }
-        log.debug("Cache size={}", cache.size());
         return type;
     }
 
-    public String getGroupNameByTypeId(long typeId) {
-        return getTypeFromCache(typeId).getGroupName();
+    private static Type toType(final long typeId, final EsiType esiType) {
+        return new Type(typeId, esiType.getName(), esiType.getGroupId(), null, null, null, esiType.getVolume(),
+                        esiType.getPackagedVolume());
     }
 
-    public long getGroupIdByTypeId(long typeId) {
-        return getTypeFromCache(typeId).getGroupId();
-    }
+    /**
+     * Resolves many types at once. Types that are not loaded yet are read with a single query, the remaining ones are
+     * requested from ESI concurrently and stored with a single insert. Types that can't be resolved are logged and
+     * left out of the result.
+     *
+     * @return the types by their id
+     */
+    public Map<Long, Type> getTypes(final Set<Long> typeIds) {
+        final Map<Long, Type> types = new HashMap<>(typeIds.size() * 2);
+        final Set<Long> missing = new HashSet<>();
+        for (final Long typeId : typeIds) {
+            final Type type = getKnownType(typeId);
+            if (null != type) {
+                types.put(typeId, type);
+            } else {
+                missing.add(typeId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return types;
+        }
 
-    private void addGroupNameAndCategoryId(final Type type) {
-        final Optional<JsonNode> responseNode = requestService.getGroupInfo(type.getGroupId());
-        if (!responseNode.isPresent()) {
-            throw new TypeResolveException(type.getGroupId());
+        try (Stream<Type> stored = repository.findByTypeIdIn(new HashSet<>(missing))) {
+            stored.forEach(type -> {
+                missing.remove(type.getTypeId());
+                types.put(type.getTypeId(), addResolved(type));
+            });
         }
-        final JSONObject responseObj = responseNode.get().getObject();
-        final String groupName = responseObj.getString("name");
-        final long categoryId = responseObj.getLong("category_id");
-        final JSONArray types = responseObj.getJSONArray("types");
-        final Set<Long> typeIds = new HashSet<>();
-        for (int i = 0; i < types.length(); i++) {
-            typeIds.add(types.getLong(i));
+        if (missing.isEmpty()) {
+            return types;
         }
-        repository.save(Stream.concat(Stream.of(type), repository.findByTypeIdIn(typeIds)).peek(t -> {
-            t.setGroupName(groupName);
-            t.setCategoryId(categoryId);
-        }).collect(Collectors.toList()));
+
+        log.info("Requesting {} unknown types from ESI.", missing.size());
+        // the request service limits how many requests are in flight
+        final Map<Long, CompletableFuture<Optional<EsiType>>> requests = new HashMap<>();
+        missing.forEach(typeId -> requests.put(typeId, requestService.getTypeInfoAsync(typeId)));
+        final List<Type> fetched = new ArrayList<>(requests.size());
+        requests.forEach((typeId, request) -> {
+            // the future never completes exceptionally, failures are logged and mapped to an empty result
+            final Optional<EsiType> response = request.join();
+            if (response.isPresent()) {
+                fetched.add(toType(typeId, response.get()));
+            } else {
+                log.warn("Failed to resolve the type {}.", typeId);
+            }
+        });
+        if (!fetched.isEmpty()) {
+            try {
+                repository.insert(fetched);
+            } catch (DuplicateKeyException e) {
+                // some of the types were stored concurrently by a single lookup
+                repository.save(fetched);
+            }
+            fetched.forEach(type -> types.put(type.getTypeId(), addResolved(type)));
+        }
+        return types;
     }
 
-    public long getCategoryIdByTypeId(long typeId) {
-        final Type type = getTypeFromCache(typeId);
-        if (null == type.getCategoryId()) {
-            addGroupNameAndCategoryId(type);
+    /**
+     * @return the type that is known from now on, which is another instance if the type was resolved concurrently
+     */
+    private Type addResolved(final Type type) {
+        final Type existing = resolved.putIfAbsent(type.getTypeId(), type);
+        if (null != existing) {
+            return existing;
         }
-        return type.getCategoryId();
+        indexName(type);
+        return type;
+    }
+
+    public String getGroupNameByTypeId(long typeId) {
+        return hierarchy.getGroupName(getTypeFromCache(typeId).getGroupId());
+    }
+
+    public long getGroupIdByTypeId(long typeId) {
+        return getTypeFromCache(typeId).getGroupId();
+    }
+
+    public long getCategoryIdByTypeId(long typeId) {
+        return hierarchy.getCategoryId(getTypeFromCache(typeId).getGroupId());
     }
 
     public String getCategoryNameByTypeId(long typeId) {
-        final Type type = getTypeFromCache(typeId);
-        if (null == type.getCategoryName()) {
-            addCategoryName(type);
-        }
-        return type.getCategoryName();
+        return hierarchy.getCategoryName(getCategoryIdByTypeId(typeId));
     }
 
-    private void addCategoryName(final Type type) {
-        if (null == type.getCategoryId()) {
-            addGroupNameAndCategoryId(type);
+    private Type getType(final String typeName) {
+        final Long typeId = typeIdsByName.get(normalize(typeName));
+        if (null != typeId) {
+            return getTypeFromCache(typeId);
         }
-        final Optional<JsonNode> optional = requestService.getCategoryInfo(type.getCategoryId());
-        if (!optional.isPresent()) {
-            throw new TypeResolveException(type.getCategoryId());
+        log.debug("Searching the type {}.", typeName);
+        final Optional<EsiSearchResult> response = requestService.searchType(typeName.trim());
+        if (!response.isPresent()) {
+            throw new TypeResolveException(typeName);
         }
-        final JSONObject responseObj = optional.get().getObject();
-        final String categoryName = responseObj.getString("category_name");
-        final JSONArray groups = responseObj.getJSONArray("groups");
-        final Set<Long> groupIds = new HashSet<>();
-        for (int i = 0; i < groups.length(); i++) {
-            groupIds.add(groups.getLong(i));
+        final List<Long> typeIds = response.get().getInventoryType();
+        if (null == typeIds || typeIds.isEmpty()) {
+            throw new TypeResolveException("No typeIds returned for " + typeName);
         }
-        repository.save(Stream.concat(Stream.of(type), repository.findByGroupIdIn(groupIds))
-                              .peek(t -> t.setCategoryName(categoryName))
-                              .collect(Collectors.toList()));
+        final Type type = getTypeFromCache(typeIds.get(0));
+        // the searched name may differ from the stored one, e.g. in case
+        typeIdsByName.putIfAbsent(normalize(typeName), type.getTypeId());
+        return type;
     }
 
-    private Type getType(final String typeName) {
-        final Optional<Type> optional = repository.findByTypeName(typeName);
-        if (optional.isPresent()) {
-            return optional.get();
-        } else {
-            final Optional<JsonNode> responseNode = requestService.searchType(typeName);
-            if (!responseNode.isPresent()) {
-                throw new TypeResolveException(typeName);
-            }
-            final JSONObject jsonObject = responseNode.get().getArray().getJSONObject(0);
-            if (!jsonObject.has("inventory_type")) {
-                throw new TypeResolveException("No typeIds returned for " + typeName);
-            }
-            final JSONArray array = jsonObject.getJSONArray("inventory_type");
-            if (array.length() == 0) {
-                throw new TypeResolveException("No typeIds returned for " + typeName);
-            } else {
-                return getTypeFromCache(array.getLong(0));
-            }
-        }
+    /**
+     * Resolves the ids of many type names at once. Known names are answered from memory, only unknown names are
+     * searched.
+     *
+     * @return the type id by the given name
+     */
+    public Map<String, Long> resolveNames(final Collection<String> typeNames) {
+        final Map<String, Long> typeIds = new HashMap<>(typeNames.size() * 2);
+        typeNames.forEach(typeName -> typeIds.put(typeName, getType(typeName).getTypeId()));
+        return typeIds;
     }
 
     public long getTypeId(String typeName) {
@@ -169,14 +283,6 @@ public class TypeService {
     }
 
     public long getCategoryIdByTypeId(String typeName) {
-        final Type type = getType(typeName);
-        if (null == type.getCategoryId()) {
-            addGroupNameAndCategoryId(type);
-        }
-        return type.getCategoryId();
-    }
-
-    long getTypeIdByName(final String name) {
-        return getType(name).getTypeId();
+        return hierarchy.getCategoryId(getType(typeName).getGroupId());
     }
 }
@@ -0,0 +1,53 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * A corporation asset as returned by ESI.
+ */
+public class EsiAsset {
+
+    private long itemId;
+    private long typeId;
+    private long quantity;
+    private long locationId;
+    private String locationFlag;
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(final long itemId) {
+        this.itemId = itemId;
+    }
+
+    public long getTypeId() {
+        return typeId;
+    }
+
+    public void setTypeId(final long typeId) {
+        this.typeId = typeId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(final long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(final long locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getLocationFlag() {
+        return locationFlag;
+    }
+
+    public void setLocationFlag(final String locationFlag) {
+        this.locationFlag = locationFlag;
+    }
+}
@@ -0,0 +1,28 @@
+package com.thebuyback.eve.service.dto.esi;
+
+import java.util.List;
+
+/**
+ * An inventory category as returned by ESI.
+ */
+public class EsiCategory {
+
+    private String categoryName;
+    private List<Long> groups;
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(final String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public List<Long> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(final List<Long> groups) {
+        this.groups = groups;
+    }
+}
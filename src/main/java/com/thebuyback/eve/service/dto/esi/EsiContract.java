@@ -0,0 +1,118 @@
+package com.thebuyback.eve.service.dto.esi;
+
+import java.time.Instant;
+
+/**
+ * A corporation contract as returned by ESI.
+ */
+public class EsiContract {
+
+    private long contractId;
+    private long issuerId;
+    private long issuerCorporationId;
+    private long assigneeId;
+    private String type;
+    private String status;
+    private long startLocationId;
+    private double price;
+    private double reward;
+    private String title;
+    private Instant dateIssued;
+    private Instant dateCompleted;
+
+    public long getContractId() {
+        return contractId;
+    }
+
+    public void setContractId(final long contractId) {
+        this.contractId = contractId;
+    }
+
+    public long getIssuerId() {
+        return issuerId;
+    }
+
+    public void setIssuerId(final long issuerId) {
+        this.issuerId = issuerId;
+    }
+
+    public long getIssuerCorporationId() {
+        return issuerCorporationId;
+    }
+
+    public void setIssuerCorporationId(final long issuerCorporationId) {
+        this.issuerCorporationId = issuerCorporationId;
+    }
+
+    public long getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(final long assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(final String type) {
+        this.type = type;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    public long getStartLocationId() {
+        return startLocationId;
+    }
+
+    public void setStartLocationId(final long startLocationId) {
+        this.startLocationId = startLocationId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(final double price) {
+        this.price = price;
+    }
+
+    public double getReward() {
+        return reward;
+    }
+
+    public void setReward(final double reward) {
+        this.reward = reward;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(final String title) {
+        this.title = title;
+    }
+
+    public Instant getDateIssued() {
+        return dateIssued;
+    }
+
+    public void setDateIssued(final Instant dateIssued) {
+        this.dateIssued = dateIssued;
+    }
+
+    public Instant getDateCompleted() {
+        return dateCompleted;
+    }
+
+    public void setDateCompleted(final Instant dateCompleted) {
+        this.dateCompleted = dateCompleted;
+    }
+}
@@ -0,0 +1,26 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * An item of a corporation contract as returned by ESI.
+ */
+public class EsiContractItem {
+
+    private long typeId;
+    private long quantity;
+
+    public long getTypeId() {
+        return typeId;
+    }
+
+    public void setTypeId(final long typeId) {
+        this.typeId = typeId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(final long quantity) {
+        this.quantity = quantity;
+    }
+}
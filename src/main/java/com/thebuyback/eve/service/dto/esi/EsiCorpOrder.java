@@ -0,0 +1,47 @@
+package com.thebuyback.eve.service.dto.esi;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A market order of the corporation as returned by ESI.
+ */
+public class EsiCorpOrder {
+
+    @JsonProperty("is_buy_order")
+    private boolean buyOrder;
+    private long volumeRemain;
+    private double price;
+    private double escrow;
+
+    public boolean isBuyOrder() {
+        return buyOrder;
+    }
+
+    public void setBuyOrder(final boolean buyOrder) {
+        this.buyOrder = buyOrder;
+    }
+
+    public long getVolumeRemain() {
+        return volumeRemain;
+    }
+
+    public void setVolumeRemain(final long volumeRemain) {
+        this.volumeRemain = volumeRemain;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(final double price) {
+        this.price = price;
+    }
+
+    public double getEscrow() {
+        return escrow;
+    }
+
+    public void setEscrow(final double escrow) {
+        this.escrow = escrow;
+    }
+}
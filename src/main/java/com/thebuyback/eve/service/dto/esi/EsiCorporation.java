@@ -0,0 +1,26 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * A corporation as returned by ESI.
+ */
+public class EsiCorporation {
+
+    private String name;
+    private Long allianceId;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public Long getAllianceId() {
+        return allianceId;
+    }
+
+    public void setAllianceId(final Long allianceId) {
+        this.allianceId = allianceId;
+    }
+}
@@ -0,0 +1,37 @@
+package com.thebuyback.eve.service.dto.esi;
+
+import java.util.List;
+
+/**
+ * An inventory group as returned by ESI.
+ */
+public class EsiGroup {
+
+    private String name;
+    private long categoryId;
+    private List<Long> types;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(final long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public List<Long> getTypes() {
+        return types;
+    }
+
+    public void setTypes(final List<Long> types) {
+        this.types = types;
+    }
+}
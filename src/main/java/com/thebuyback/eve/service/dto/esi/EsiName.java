@@ -0,0 +1,35 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * The name of an entity as returned by ESI's /universe/names.
+ */
+public class EsiName {
+
+    private long id;
+    private String name;
+    private String category;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(final long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(final String category) {
+        this.category = category;
+    }
+}
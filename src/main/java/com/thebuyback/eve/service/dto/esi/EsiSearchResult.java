@@ -0,0 +1,19 @@
+package com.thebuyback.eve.service.dto.esi;
+
+import java.util.List;
+
+/**
+ * The ids that were found by ESI's search.
+ */
+public class EsiSearchResult {
+
+    private List<Long> inventoryType;
+
+    public List<Long> getInventoryType() {
+        return inventoryType;
+    }
+
+    public void setInventoryType(final List<Long> inventoryType) {
+        this.inventoryType = inventoryType;
+    }
+}
@@ -0,0 +1,26 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * A station as returned by ESI.
+ */
+public class EsiStation {
+
+    private String name;
+    private long systemId;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public long getSystemId() {
+        return systemId;
+    }
+
+    public void setSystemId(final long systemId) {
+        this.systemId = systemId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * A structure as returned by ESI.
+ */
+public class EsiStructure {
+
+    private String name;
+    private long ownerId;
+    private long solarSystemId;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(final long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public long getSolarSystemId() {
+        return solarSystemId;
+    }
+
+    public void setSolarSystemId(final long solarSystemId) {
+        this.solarSystemId = solarSystemId;
+    }
+}
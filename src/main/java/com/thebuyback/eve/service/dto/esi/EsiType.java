@@ -0,0 +1,44 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * A type as returned by ESI.
+ */
+public class EsiType {
+
+    private String name;
+    private long groupId;
+    private double volume;
+    private Double packagedVolume;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(final long groupId) {
+        this.groupId = groupId;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public void setVolume(final double volume) {
+        this.volume = volume;
+    }
+
+    public Double getPackagedVolume() {
+        return packagedVolume;
+    }
+
+    public void setPackagedVolume(final Double packagedVolume) {
+        this.packagedVolume = packagedVolume;
+    }
+}
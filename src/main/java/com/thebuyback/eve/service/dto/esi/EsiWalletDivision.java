@@ -0,0 +1,26 @@
+package com.thebuyback.eve.service.dto.esi;
+
+/**
+ * The balance of a corporation wallet division as returned by ESI.
+ */
+public class EsiWalletDivision {
+
+    private int division;
+    private double balance;
+
+    public int getDivision() {
+        return division;
+    }
+
+    public void setDivision(final int division) {
+        this.division = division;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(final double balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Data Transfer Objects for the responses of ESI, the EVE Swagger Interface.
+ */
+package com.thebuyback.eve.service.dto.esi;
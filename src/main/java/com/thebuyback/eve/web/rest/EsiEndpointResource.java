@@ -0,0 +1,33 @@
+package com.thebuyback.eve.web.rest;
+
+import com.thebuyback.eve.service.EsiEndpoint;
+import com.thebuyback.eve.service.EsiEndpointRegistry;
+import com.thebuyback.eve.web.rest.vm.EsiEndpointVM;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for viewing the circuit breakers of the ESI endpoints at runtime.
+ */
+@RestController
+@RequestMapping("/management")
+public class EsiEndpointResource {
+
+    private final EsiEndpointRegistry endpointRegistry;
+
+    public EsiEndpointResource(final EsiEndpointRegistry endpointRegistry) {
+        this.endpointRegistry = endpointRegistry;
+    }
+
+    @GetMapping("/esi-endpoints")
+    public List<EsiEndpointVM> getList() {
+        return Arrays.stream(EsiEndpoint.values())
+            .map(endpoint -> new EsiEndpointVM(endpoint, endpointRegistry.getBreaker(endpoint),
+                                               endpointRegistry.getExpiry(endpoint).orElse(null)))
+            .collect(Collectors.toList());
+    }
+}
@@ -5,17 +5,17 @@ import java.util.List;
 import java.util.Optional;
 
 import com.thebuyback.eve.domain.DoctrineItemDetails;
-import com.thebuyback.eve.domain.MarketOrder;
 import com.thebuyback.eve.domain.stock.Doctrine;
 import com.thebuyback.eve.domain.stock.Hub;
 import com.thebuyback.eve.domain.stock.StockDoctrine;
 import com.thebuyback.eve.domain.stock.TypeStockHistory;
 import com.thebuyback.eve.repository.DoctrineRepository;
 import com.thebuyback.eve.repository.HubRepository;
-import com.thebuyback.eve.repository.MarketOrderRepository;
 import com.thebuyback.eve.repository.StockDoctrineRepository;
 import com.thebuyback.eve.repository.TypeStockHistoryRepository;
 import com.thebuyback.eve.security.AuthoritiesConstants;
+import com.thebuyback.eve.service.OrderBook;
+import com.thebuyback.eve.service.OrderBookService;
 import com.thebuyback.eve.service.TypeService;
 
 import static com.thebuyback.eve.service.StockDataLoader.JITA;
@@ -42,20 +42,20 @@ public class DoctrineResource {
     private final StockDoctrineRepository stockDoctrineRepository;
     private final HubRepository hubRepository;
     private final TypeStockHistoryRepository typeStockHistoryRepository;
-    private final MarketOrderRepository marketOrderRepository;
+    private final OrderBookService orderBookService;
     private final TypeService typeService;
 
     public DoctrineResource(final DoctrineRepository repository,
                             final StockDoctrineRepository stockDoctrineRepository,
                             final HubRepository hubRepository,
                             final TypeStockHistoryRepository typeStockHistoryRepository,
-                            final MarketOrderRepository marketOrderRepository,
+                            final OrderBookService orderBookService,
                             final TypeService typeService) {
         this.repository = repository;
         this.stockDoctrineRepository = stockDoctrineRepository;
         this.hubRepository = hubRepository;
         this.typeStockHistoryRepository = typeStockHistoryRepository;
-        this.marketOrderRepository = marketOrderRepository;
+        this.orderBookService = orderBookService;
         this.typeService = typeService;
     }
 
@@ -125,12 +125,11 @@ public class DoctrineResource {
         history.sort(Comparator.comparing(TypeStockHistory::getDate));
 
         final DoctrineItemDetails result = from(history.get(history.size() - 1));
-        final List<MarketOrder> targetSell = marketOrderRepository.findByLocationIdAndIsBuyOrderAndTypeIdOrderByPriceAsc(hub.getId(), false, typeId);
-        result.setSellPrice(getFirstOrMinusOne(targetSell));
-        final List<MarketOrder> jitaBuy = marketOrderRepository.findByLocationIdAndIsBuyOrderAndTypeIdOrderByPriceDesc(JITA, true, typeId);
-        result.setJitaBuy(getFirstOrMinusOne(jitaBuy));
-        final List<MarketOrder> jitaSell = marketOrderRepository.findByLocationIdAndIsBuyOrderAndTypeIdOrderByPriceAsc(JITA, false, typeId);
-        result.setJitaSell(getFirstOrMinusOne(jitaSell));
+        final OrderBook targetBook = orderBookService.getBook(hub.getId());
+        result.setSellPrice(targetBook.getBestAsk(typeId).orElse(-1.0));
+        final OrderBook jitaBook = orderBookService.getBook(JITA);
+        result.setJitaBuy(jitaBook.getBestBid(typeId).orElse(-1.0));
+        result.setJitaSell(jitaBook.getBestAsk(typeId).orElse(-1.0));
         result.setPriceBorder(calcOverpricedBorder(result.getJitaSell()));
         result.setStockHistory(history);
         result.setDaysRemaining(calcDaysRemaining(history, history.get(history.size() - 1).getLatestQuantity().intValue()));
@@ -173,8 +172,4 @@ public class DoctrineResource {
     private double calcOverpricedBorder(final Double price) {
         return price * (1 + (8 / (Math.log(price) + 3)));
     }
-
-    private Double getFirstOrMinusOne(final List<MarketOrder> orders) {
-        return orders.isEmpty() ? -1.0 : orders.get(0).getPrice();
-    }
 }
@@ -0,0 +1,70 @@
+package com.thebuyback.eve.web.rest.vm;
+
+import java.time.Instant;
+
+import com.thebuyback.eve.service.CircuitBreaker;
+import com.thebuyback.eve.service.EsiEndpoint;
+
+/**
+ * View Model object for the circuit breaker and cache expiry of an ESI endpoint.
+ */
+public class EsiEndpointVM {
+
+    private String name;
+
+    private String priority;
+
+    private String state;
+
+    private int consecutiveFailures;
+
+    private Instant openUntil;
+
+    private Instant expires;
+
+    public EsiEndpointVM(EsiEndpoint endpoint, CircuitBreaker breaker, Instant expires) {
+        this.name = endpoint.name();
+        this.priority = endpoint.getPriority().name();
+        this.state = breaker.getState().name();
+        this.consecutiveFailures = breaker.getConsecutiveFailures();
+        this.openUntil = breaker.getOpenUntil();
+        this.expires = expires;
+    }
+
+    public EsiEndpointVM() {
+        // Empty public constructor used by Jackson.
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public Instant getOpenUntil() {
+        return openUntil;
+    }
+
+    public Instant getExpires() {
+        return expires;
+    }
+
+    @Override
+    public String toString() {
+        return "EsiEndpointVM{" +
+            "name='" + name + '\'' +
+            ", state='" + state + '\'' +
+            ", consecutiveFailures=" + consecutiveFailures +
+            '}';
+    }
+}
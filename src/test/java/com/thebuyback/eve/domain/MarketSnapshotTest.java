@@ -0,0 +1,79 @@
+package com.thebuyback.eve.domain;
+
+import java.time.Instant;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MarketSnapshotTest {
+
+    private static final Instant ISSUED = Instant.parse("2018-05-14T12:34:56Z");
+
+    @Test
+    public void build_sortsByTypeSideAndPrice() {
+        final MarketSnapshot sut = MarketSnapshot.builder()
+                                                 .add(1L, 35L, false, 9.0, 1, 1, 1, 90, 0L, (byte) 0)
+                                                 .add(2L, 34L, true, 3.0, 20, 20, 1, 90, 0L, (byte) 0)
+                                                 .add(3L, 34L, false, 5.0, 100, 100, 1, 90, 0L, (byte) 0)
+                                                 .add(4L, 34L, true, 3.5, 5, 5, 1, 90, 0L, (byte) 0)
+                                                 .add(5L, 34L, false, 4.0, 10, 10, 1, 90, 0L, (byte) 0)
+                                                 .build(1L, Instant.now(), false);
+
+        assertEquals(2, sut.getTypeCount());
+        final int type = sut.indexOfType(34L);
+        assertEquals(0, sut.getSellStart(type));
+        assertEquals(2, sut.getSellEnd(type));
+        assertEquals(4, sut.getBuyEnd(type));
+        assertEquals(5L, sut.getOrderId(0));
+        assertEquals(110L, sut.getCumulativeVolume(1));
+        assertEquals(4L, sut.getOrderId(2));
+        assertEquals(25L, sut.getCumulativeVolume(3));
+        assertEquals(35L, sut.getTypeId(4));
+        assertTrue(sut.isBuyOrder(3));
+        assertFalse(sut.isBuyOrder(4));
+        assertTrue(sut.indexOfType(36L) < 0);
+    }
+
+    @Test
+    public void build_keepsLastDuplicate() {
+        final MarketSnapshot sut = MarketSnapshot.builder()
+                                                 .add(1L, 34L, false, 5.0, 100, 100, 1, 90, 0L, (byte) 0)
+                                                 .add(1L, 34L, false, 4.0, 80, 100, 1, 90, 0L, (byte) 0)
+                                                 .build(1L, Instant.now(), false);
+
+        assertEquals(1, sut.size());
+        assertEquals(4.0, sut.getPrice(0), 0.0);
+        assertEquals(80, sut.getVolumeRemain(0));
+    }
+
+    @Test
+    public void toMarketOrder_offHeap() {
+        final MarketOrder order = new MarketOrder();
+        order.setOrderId(7L);
+        order.setTypeId(34L);
+        order.setBuyOrder(true);
+        order.setPrice(12.5);
+        order.setVolumeRemain(700L);
+        order.setVolumeTotal(1000L);
+        order.setMinVolume(1L);
+        order.setDuration(90);
+        order.setIssued(ISSUED);
+        order.setRange("solarsystem");
+
+        final MarketSnapshot sut = MarketSnapshot.builder().add(order).build(60003760L, Instant.now(), true);
+        final MarketOrder result = sut.toMarketOrder(0);
+
+        assertTrue(sut.isOffHeap());
+        assertEquals(7L, result.getOrderId().longValue());
+        assertEquals(34L, result.getTypeId().longValue());
+        assertEquals(60003760L, result.getLocationId().longValue());
+        assertTrue(result.isBuyOrder());
+        assertEquals(12.5, result.getPrice(), 0.0);
+        assertEquals(700L, result.getVolumeRemain().longValue());
+        assertEquals(1000L, result.getVolumeTotal().longValue());
+        assertEquals(1L, result.getMinVolume().longValue());
+        assertEquals(90, result.getDuration().intValue());
+        assertEquals(ISSUED, result.getIssued());
+        assertEquals("solarsystem", result.getRange());
+    }
+}
@@ -0,0 +1,87 @@
+package com.thebuyback.eve.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.MetricRegistry;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.thebuyback.eve.service.AccessTokenCache.AccessToken;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AccessTokenCacheTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final AccessTokenCache sut = new AccessTokenCache(metricRegistry);
+
+    @Test
+    public void getAccessToken_keepsTokenUntilShortlyBeforeExpiry() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("a1", sut.getAccessToken("a", () -> token("a" + loads.incrementAndGet(), 1200)));
+        assertEquals("a1", sut.getAccessToken("a", () -> token("a" + loads.incrementAndGet(), 1200)));
+        assertEquals("b2", sut.getAccessToken("b", () -> token("b" + loads.incrementAndGet(), 30)));
+        assertEquals("b3", sut.getAccessToken("b", () -> token("b" + loads.incrementAndGet(), 30)));
+
+        assertEquals(3, loads.get());
+        assertEquals(3L, metricRegistry.meter(MetricRegistry.name(AccessTokenCache.class, "refreshes")).getCount());
+    }
+
+    @Test
+    public void evict_refreshesRejectedToken() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        assertEquals("a1", sut.getAccessToken("a", () -> token("a" + loads.incrementAndGet(), 1200)));
+        assertEquals("b2", sut.getAccessToken("b", () -> token("b" + loads.incrementAndGet(), 1200)));
+
+        sut.evict("a1");
+
+        assertEquals("a3", sut.getAccessToken("a", () -> token("a" + loads.incrementAndGet(), 1200)));
+        assertEquals("b2", sut.getAccessToken("b", () -> token("b" + loads.incrementAndGet(), 1200)));
+    }
+
+    @Test
+    public void getAccessToken_sharesOneRefresh() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRefresh = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> sut.getAccessToken("a", () -> {
+                    loads.incrementAndGet();
+                    refreshStarted.countDown();
+                    try {
+                        releaseRefresh.await();
+                    } catch (InterruptedException e) {
+                        throw new UnirestException(e);
+                    }
+                    return token("shared", 1200);
+                })));
+            }
+            assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+            // give the other callers the chance to run into the refresh
+            Thread.sleep(100);
+            releaseRefresh.countDown();
+
+            for (final Future<String> result : results) {
+                assertEquals("shared", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AccessToken token(final String value, final long expiresIn) {
+        return new AccessToken(value, Instant.now().plusSeconds(expiresIn));
+    }
+}
@@ -0,0 +1,103 @@
+package com.thebuyback.eve.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.thebuyback.eve.config.ApplicationProperties;
+import com.thebuyback.eve.domain.Type;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DictionarySnapshotTest {
+
+    private final ApplicationProperties properties = new ApplicationProperties();
+
+    public DictionarySnapshotTest() throws IOException {
+        final Path directory = Files.createTempDirectory("snapshot");
+        directory.toFile().deleteOnExit();
+        properties.getSnapshot().setPath(directory.resolve("dictionary.snapshot").toString());
+    }
+
+    @Test
+    public void readsWhatWasWrittenBeforeTheRestart() throws IOException {
+        final Map<Long, String> locations = new HashMap<>();
+        locations.put(60003760L, "Jita IV - Moon 4 - Caldari Navy Assembly Plant");
+        locations.put(1022734985679L, "1DQ1-A - 1-st Imperial Palace");
+        new DictionarySnapshot(properties).write(
+            Arrays.asList(new Type(587L, "Rifter", 25L, "Frigate", 6L, "Ship", 27289.0, 2500.0),
+                          new Type(34L, "Tritanium", 18L, null, null, null, 0.01, null)),
+            new HierarchyTable.Builder().add(25L, "Frigate", 6L).add(18L, "Mineral", 4L).build(),
+            new HierarchyTable.Builder().add(6L, "Ship", 0L).add(4L, "Material", 0L).build(),
+            locations);
+
+        final DictionarySnapshot sut = new DictionarySnapshot(properties);
+
+        assertEquals(2, sut.getTypeCount());
+        final Type rifter = sut.getType(587L);
+        assertEquals("Rifter", rifter.getTypeName());
+        assertEquals(25L, rifter.getGroupId());
+        assertEquals(27289.0, rifter.getVolume(), 0.0);
+        assertEquals(2500.0, rifter.getPackagedVolume(), 0.0);
+        assertNull(sut.getType(34L).getPackagedVolume());
+        assertNull(sut.getType(35L));
+        final Map<String, Long> typeIds = new HashMap<>();
+        sut.forEachTypeName(typeIds::put);
+        assertEquals(Long.valueOf(34L), typeIds.get("Tritanium"));
+        assertEquals("Mineral", sut.getGroups().getName(18L));
+        assertEquals(Long.valueOf(6L), sut.getGroups().getParent(25L));
+        assertEquals("Material", sut.getCategories().getName(4L));
+        assertEquals("1DQ1-A - 1-st Imperial Palace", sut.getLocationName(1022734985679L));
+        assertNull(sut.getLocationName(60003761L));
+    }
+
+    @Test
+    public void startsEmptyWithoutSnapshot() {
+        final DictionarySnapshot sut = new DictionarySnapshot(properties);
+
+        assertEquals(0, sut.getTypeCount());
+        assertNull(sut.getType(587L));
+        assertEquals(0, sut.getGroups().size());
+        assertNull(sut.getLocationName(60003760L));
+    }
+
+    @Test
+    public void ignoresTruncatedSnapshot() throws IOException {
+        new DictionarySnapshot(properties).write(
+            Collections.singletonList(new Type(587L, "Rifter", 25L, null, null, null, 27289.0, 2500.0)),
+            HierarchyTable.EMPTY, HierarchyTable.EMPTY, Collections.emptyMap());
+        final Path path = Paths.get(properties.getSnapshot().getPath());
+        final byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+
+        final DictionarySnapshot sut = new DictionarySnapshot(properties);
+
+        assertEquals(0, sut.getTypeCount());
+        assertNull(sut.getType(587L));
+    }
+
+    @Test
+    public void ignoresSnapshotWithCorruptRecordOffset() throws IOException {
+        new DictionarySnapshot(properties).write(
+            Collections.singletonList(new Type(587L, "Rifter", 25L, null, null, null, 27289.0, 2500.0)),
+            HierarchyTable.EMPTY, HierarchyTable.EMPTY, Collections.emptyMap());
+        final Path path = Paths.get(properties.getSnapshot().getPath());
+        final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        // the offset of the first type, after the header, the type count and the type id
+        bytes.putInt(3 * Integer.BYTES + Long.BYTES, 1_000_000);
+        Files.write(path, bytes.array());
+
+        final DictionarySnapshot sut = new DictionarySnapshot(properties);
+
+        assertEquals(0, sut.getTypeCount());
+        assertNull(sut.getType(587L));
+    }
+}
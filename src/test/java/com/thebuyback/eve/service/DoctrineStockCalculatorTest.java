@@ -0,0 +1,99 @@
+package com.thebuyback.eve.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.enumeration.Availability;
+import com.thebuyback.eve.domain.stock.Doctrine;
+import com.thebuyback.eve.domain.stock.Fitting;
+import com.thebuyback.eve.domain.stock.FittingItem;
+import com.thebuyback.eve.domain.stock.Hub;
+import com.thebuyback.eve.domain.stock.StockDoctrine;
+import com.thebuyback.eve.domain.stock.StockItem;
+
+import static com.thebuyback.eve.service.StockDataLoader.JITA;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DoctrineStockCalculatorTest {
+
+    private static final Hub HUB = new Hub(1L, "Fortizar", "1DQ1-A", false);
+
+    private static long nextOrderId = 1L;
+
+    private final DoctrineStockCalculator sut = new DoctrineStockCalculator(
+        OrderBook.of(HUB.getId(), Arrays.asList(sell(34L, 5.0, 30L), sell(35L, 100.0, 1L), sell(36L, 100.0, 10L))),
+        OrderBook.of(JITA, Arrays.asList(sell(34L, 4.0, 1000L), sell(35L, 90.0, 1000L), sell(36L, 1.0, 1000L))),
+        Arrays.asList(new Fitting("f1", "Muninn", Arrays.asList(new FittingItem(34L, 10L), new FittingItem(35L, 1L))),
+                      new Fitting("f2", "Scimitar", Arrays.asList(new FittingItem(34L, 5L))),
+                      new Fitting("f3", "Huginn", Arrays.asList(new FittingItem(36L, 1L)))),
+        typeId -> "Type " + typeId);
+
+    @Test
+    public void getTargetQuantities() {
+        final Map<Long, Long> result = sut.getTargetQuantities(doctrine("Armor", "f1", 2, "f2", 1));
+
+        assertEquals(2, result.size());
+        assertEquals(25L, result.get(34L).longValue());
+        assertEquals(2L, result.get(35L).longValue());
+    }
+
+    @Test
+    public void calculate_missing() {
+        final StockDoctrine result = sut.calculate(doctrine("Armor", "f1", 2, "f2", 1));
+
+        assertEquals(Availability.MISSING, result.getAvailability());
+        assertEquals("Armor", result.getDoctrineName());
+        assertEquals(HUB.getId() + "Armor", result.getId());
+        final StockItem item = result.getStockItems().get(0);
+        assertEquals(34L, item.getTypeId());
+        assertEquals("Type 34", item.getTypeName());
+        assertEquals(Availability.WELL_PRICED, item.getAvailability());
+        assertEquals(30L, item.getStocked());
+        assertEquals(25L, item.getTargetStock());
+        assertEquals(Availability.MISSING, result.getStockItems().get(1).getAvailability());
+    }
+
+    @Test
+    public void calculate_wellAndOverPriced() {
+        final List<StockDoctrine> result = sut.calculate(Arrays.asList(doctrine("Logi", "f2", 1),
+                                                                       doctrine("Recon", "f3", 10)));
+
+        assertEquals(Availability.WELL_PRICED, result.get(0).getAvailability());
+        assertEquals(Availability.OVER_PRICED, result.get(1).getAvailability());
+    }
+
+    @Test
+    public void calculate_unknownFitting() {
+        final StockDoctrine result = sut.calculate(doctrine("Empty", "unknown", 1));
+
+        assertEquals(Availability.WELL_PRICED, result.getAvailability());
+        assertTrue(result.getStockItems().isEmpty());
+    }
+
+    private static Doctrine doctrine(final String name, final Object... fittingQuantities) {
+        final Map<String, Integer> quantities = new HashMap<>();
+        for (int i = 0; i < fittingQuantities.length; i += 2) {
+            quantities.put((String) fittingQuantities[i], (Integer) fittingQuantities[i + 1]);
+        }
+        final Doctrine doctrine = new Doctrine();
+        doctrine.setName(name);
+        doctrine.setHub(HUB);
+        doctrine.setFittingsQuantities(quantities);
+        return doctrine;
+    }
+
+    private static MarketOrder sell(final long typeId, final double price, final long volumeRemain) {
+        final MarketOrder order = new MarketOrder();
+        order.setOrderId(nextOrderId++);
+        order.setTypeId(typeId);
+        order.setBuyOrder(false);
+        order.setPrice(price);
+        order.setVolumeRemain(volumeRemain);
+        return order;
+    }
+}
@@ -0,0 +1,163 @@
+package com.thebuyback.eve.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.mashape.unirest.http.JsonNode;
+import com.thebuyback.eve.domain.Asset;
+import com.thebuyback.eve.service.dto.esi.EsiAsset;
+import com.thebuyback.eve.service.dto.esi.EsiContract;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading contract and asset pages through org.json with binding them to the ESI DTOs.
+ *
+ * The pages are shaped like recorded ESI pages of 1000 entries. Run with {@code main} after
+ * {@code ./mvnw test-compile}, add {@code -prof gc} to the options for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EsiDtoBenchmark {
+
+    private static final JavaType CONTRACT_LIST = JsonRequestService.listOf(EsiContract.class);
+    private static final JavaType ASSET_LIST = JsonRequestService.listOf(EsiAsset.class);
+
+    private byte[] contractPage;
+    private byte[] assetPage;
+
+    @Setup
+    public void createPages() {
+        final Random random = new Random(42);
+        contractPage = createContractPage(1000, random).getBytes(StandardCharsets.UTF_8);
+        assetPage = createAssetPage(1000, random).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Instant> contractsJsonArray() {
+        final JSONArray contractArray = new JsonNode(new String(contractPage, StandardCharsets.UTF_8)).getArray();
+        final List<Instant> result = new ArrayList<>();
+        for (int i = 0; i < contractArray.length(); i++) {
+            final JSONObject jsonContract = contractArray.getJSONObject(i);
+            jsonContract.getLong("contract_id");
+            jsonContract.getLong("issuer_id");
+            jsonContract.getLong("assignee_id");
+            jsonContract.getLong("issuer_corporation_id");
+            jsonContract.getString("type");
+            jsonContract.getString("status");
+            jsonContract.getLong("start_location_id");
+            jsonContract.getDouble("price");
+            jsonContract.getDouble("reward");
+            if (jsonContract.has("title")) {
+                jsonContract.getString("title");
+            }
+            result.add(Instant.parse(jsonContract.getString("date_issued")));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<EsiContract> contractsDto() throws IOException {
+        return JsonRequestService.ESI_MAPPER.readValue(contractPage, CONTRACT_LIST);
+    }
+
+    @Benchmark
+    public List<Asset> assetsJsonArray() {
+        final JSONArray assetsArray = new JsonNode(new String(assetPage, StandardCharsets.UTF_8)).getArray();
+        final List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < assetsArray.length(); i++) {
+            final JSONObject asset = assetsArray.getJSONObject(i);
+            assets.add(new Asset(asset.getLong("item_id"), asset.getLong("type_id"), asset.getLong("quantity"),
+                                 asset.getLong("location_id"), asset.getString("location_flag")));
+        }
+        return assets;
+    }
+
+    @Benchmark
+    public List<Asset> assetsDto() throws IOException {
+        final List<EsiAsset> page = JsonRequestService.ESI_MAPPER.readValue(assetPage, ASSET_LIST);
+        final List<Asset> assets = new ArrayList<>();
+        for (final EsiAsset asset : page) {
+            assets.add(new Asset(asset.getItemId(), asset.getTypeId(), asset.getQuantity(), asset.getLocationId(),
+                                 asset.getLocationFlag()));
+        }
+        return assets;
+    }
+
+    static String createContractPage(final int size, final Random random) {
+        final String[] statuses = {"outstanding", "finished", "rejected", "deleted"};
+        final String[] types = {"item_exchange", "courier", "auction"};
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"acceptor_id\":0")
+                   .append(",\"assignee_id\":98503372")
+                   .append(",\"availability\":\"personal\"")
+                   .append(",\"contract_id\":").append(120_000_000L + i)
+                   .append(",\"date_expired\":\"2018-06-").append(10 + random.nextInt(18)).append("T12:34:56Z\"")
+                   .append(",\"date_issued\":\"2018-05-").append(10 + random.nextInt(18)).append("T12:34:56Z\"")
+                   .append(",\"days_to_complete\":0")
+                   .append(",\"for_corporation\":false")
+                   .append(",\"issuer_corporation_id\":").append(98_000_000L + random.nextInt(1_000_000))
+                   .append(",\"issuer_id\":").append(90_000_000L + random.nextInt(10_000_000))
+                   .append(",\"price\":").append(random.nextInt(100_000_000) / 100.0)
+                   .append(",\"reward\":0.0")
+                   .append(",\"start_location_id\":60003760")
+                   .append(",\"status\":\"").append(statuses[random.nextInt(statuses.length)]).append('"');
+            if (random.nextBoolean()) {
+                builder.append(",\"title\":\"Buyback ").append(i).append('"');
+            }
+            builder.append(",\"type\":\"").append(types[random.nextInt(types.length)]).append('"')
+                   .append(",\"volume\":").append(random.nextInt(300_000)).append('}');
+        }
+        return builder.append(']').toString();
+    }
+
+    static String createAssetPage(final int size, final Random random) {
+        final String[] flags = {"Hangar", "CorpSAG1", "CorpSAG2", "Deliveries", "Unlocked"};
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"is_singleton\":").append(random.nextInt(10) == 0)
+                   .append(",\"item_id\":").append(1_000_000_000_000L + i)
+                   .append(",\"location_flag\":\"").append(flags[random.nextInt(flags.length)]).append('"')
+                   .append(",\"location_id\":").append(1_023_729_674_815L + random.nextInt(5))
+                   .append(",\"location_type\":\"other\"")
+                   .append(",\"quantity\":").append(1 + random.nextInt(100_000))
+                   .append(",\"type_id\":").append(random.nextInt(40_000)).append('}');
+        }
+        return builder.append(']').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EsiDtoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.thebuyback.eve.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EsiEndpointRegistryTest {
+
+    private final EsiEndpointRegistry sut = new EsiEndpointRegistry();
+
+    @Test
+    public void recordFailure_opensOnlyTheFailingEndpoint() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sut.allowRequest(EsiEndpoint.STRUCTURE_INFO));
+            sut.recordFailure(EsiEndpoint.STRUCTURE_INFO);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, sut.getBreaker(EsiEndpoint.STRUCTURE_INFO).getState());
+        assertFalse(sut.allowRequest(EsiEndpoint.STRUCTURE_INFO));
+        assertTrue(sut.allowRequest(EsiEndpoint.CORP_CONTRACTS));
+        assertEquals(sut.getBreaker(EsiEndpoint.STRUCTURE_INFO).getOpenUntil(),
+                     sut.getNextExecutionTime(EsiEndpoint.STRUCTURE_INFO));
+    }
+
+    @Test
+    public void getNextExecutionTime_usesExpiry() {
+        final Instant expires = Instant.now().plusSeconds(300);
+        sut.setExpiry(EsiEndpoint.CORP_CONTRACTS, expires);
+
+        assertEquals(expires, sut.getNextExecutionTime(EsiEndpoint.CORP_CONTRACTS));
+        assertTrue(sut.getNextExecutionTime(EsiEndpoint.CORP_ASSETS).isAfter(Instant.now()));
+    }
+
+    @Test
+    public void circuitBreaker_halfOpenAllowsOneTrial() {
+        final CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void circuitBreaker_cancelledTrialAllowsAnother() {
+        final CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        breaker.recordFailure();
+
+        assertTrue(breaker.allowRequest());
+        breaker.cancelRequest();
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,41 @@
+package com.thebuyback.eve.service;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EsiMetricsTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final EsiMetrics sut = new EsiMetrics(metricRegistry);
+
+    @Test
+    public void metricName() {
+        assertEquals("corpContracts", EsiMetrics.metricName(EsiEndpoint.CORP_CONTRACTS));
+        assertEquals("corpContractItems", EsiMetrics.metricName(EsiEndpoint.CORP_CONTRACT_ITEMS));
+        assertEquals("names", EsiMetrics.metricName(EsiEndpoint.NAMES));
+    }
+
+    @Test
+    public void recordsPerEndpoint() {
+        sut.time(EsiEndpoint.CORP_ASSETS).stop();
+        sut.recordStatus(EsiEndpoint.CORP_ASSETS, 200);
+        sut.recordStatus(EsiEndpoint.CORP_ASSETS, 200);
+        sut.recordStatus(EsiEndpoint.CORP_ASSETS, 502);
+        sut.recordBytes(EsiEndpoint.CORP_ASSETS, 1024);
+        sut.recordRetry(EsiEndpoint.CORP_ASSETS);
+        sut.recordBackoff(EsiEndpoint.CORP_ASSETS, TimeUnit.MILLISECONDS.toNanos(20));
+
+        final String prefix = EsiMetrics.class.getName() + ".corpAssets.";
+        assertEquals(1, metricRegistry.timer(prefix + "latency").getCount());
+        assertEquals(2, metricRegistry.counter(prefix + "status.200").getCount());
+        assertEquals(1, metricRegistry.counter(prefix + "status.502").getCount());
+        assertEquals(1, metricRegistry.histogram(prefix + "bytes").getCount());
+        assertEquals(1, metricRegistry.counter(prefix + "retries").getCount());
+        assertEquals(1, metricRegistry.timer(prefix + "backoff").getCount());
+        assertEquals(0, metricRegistry.timer(EsiMetrics.class.getName() + ".corpContracts.latency").getCount());
+    }
+}
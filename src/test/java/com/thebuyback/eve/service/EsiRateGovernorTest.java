@@ -0,0 +1,111 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.thebuyback.eve.service.EsiEndpoint.Priority;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EsiRateGovernorTest {
+
+    @Test
+    public void onResponse_pausesLowerPrioritiesFirst() {
+        final EsiRateGovernor sut = new EsiRateGovernor();
+
+        sut.onResponse(400, "30", "40");
+
+        assertEquals(30, sut.getErrorLimitRemain());
+        assertTrue(sut.isPaused(Priority.LOW));
+        assertFalse(sut.isPaused(Priority.NORMAL));
+        assertFalse(sut.acquire(EsiEndpoint.STRUCTURE_INFO));
+        assertTrue(sut.acquire(EsiEndpoint.CORP_CONTRACTS));
+
+        sut.onResponse(420, null, null);
+
+        assertTrue(sut.isPaused(Priority.HIGH));
+        assertFalse(sut.acquire(EsiEndpoint.CORP_CONTRACTS));
+    }
+
+    @Test
+    public void onResponse_resumesAfterReset() {
+        final EsiRateGovernor sut = new EsiRateGovernor();
+
+        sut.onResponse(420, "0", "0");
+
+        assertFalse(sut.isPaused(Priority.LOW));
+        assertEquals(EsiRateGovernor.ERROR_LIMIT, sut.getErrorLimitRemain());
+    }
+
+    @Test
+    public void acquire_keepsPermitsForHigherPriorities() throws Exception {
+        // practically no refill during the test
+        final EsiRateGovernor sut = new EsiRateGovernor(0.001, 10);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sut.acquire(EsiEndpoint.STRUCTURE_INFO));
+        }
+
+        final CompletableFuture<Boolean> low = CompletableFuture.supplyAsync(
+            () -> sut.acquire(EsiEndpoint.STRUCTURE_INFO));
+        try {
+            low.get(100, TimeUnit.MILLISECONDS);
+            fail("low priority requests must wait while only the reserve is left");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sut.acquire(EsiEndpoint.CORP_CONTRACTS));
+        }
+        assertEquals(0, sut.getAvailablePermits(), 0.01);
+    }
+
+    @Test
+    public void acquireAsync_queuedLowPriorityDoesNotDelayHigh() throws Exception {
+        // practically no refill during the test
+        final EsiRateGovernor sut = new EsiRateGovernor(0.001, 10);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sut.acquire(EsiEndpoint.STRUCTURE_INFO));
+        }
+        final List<CompletableFuture<Boolean>> low = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            low.add(sut.acquireAsync(EsiEndpoint.GROUP_INFO));
+        }
+
+        final CompletableFuture<Boolean> high = sut.acquireAsync(EsiEndpoint.CORP_CONTRACT_ITEMS);
+
+        assertTrue(high.get(100, TimeUnit.MILLISECONDS));
+        assertTrue(low.stream().noneMatch(CompletableFuture::isDone));
+        sut.shutdown();
+    }
+
+    @Test
+    public void acquireAsync_grantsQueuedRequestsAfterRefill() throws Exception {
+        final EsiRateGovernor sut = new EsiRateGovernor(50, 10);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sut.acquire(EsiEndpoint.STRUCTURE_INFO));
+        }
+        final List<CompletableFuture<Boolean>> low = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            low.add(sut.acquireAsync(EsiEndpoint.GROUP_INFO));
+        }
+
+        for (final CompletableFuture<Boolean> request : low) {
+            assertTrue(request.get(1, TimeUnit.SECONDS));
+        }
+        sut.shutdown();
+    }
+
+    @Test
+    public void acquireAsync_refusesPausedPriorities() throws Exception {
+        final EsiRateGovernor sut = new EsiRateGovernor();
+        sut.onResponse(400, "30", "40");
+
+        assertFalse(sut.acquireAsync(EsiEndpoint.GROUP_INFO).get(100, TimeUnit.MILLISECONDS));
+        assertTrue(sut.acquireAsync(EsiEndpoint.CORP_CONTRACTS).get(100, TimeUnit.MILLISECONDS));
+        sut.shutdown();
+    }
+}
@@ -0,0 +1,73 @@
+package com.thebuyback.eve.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+import com.codahale.metrics.MetricRegistry;
+import com.thebuyback.eve.domain.EsiCacheEntry;
+import com.thebuyback.eve.repository.EsiCacheEntryRepository;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class EsiResponseCacheTest {
+
+    private final EsiCacheEntryRepository repository = mock(EsiCacheEntryRepository.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final EsiResponseCache sut = new EsiResponseCache(repository, metricRegistry);
+
+    @Test
+    public void toKey() {
+        assertEquals("https://esi.evetech.net/v1/corporations/1/contracts/?page=2",
+                     EsiResponseCache.toKey("https://esi.evetech.net/v1/corporations/1/contracts/?token=abc&page=2"));
+        assertEquals("https://esi.evetech.net/v1/markets/structures/1/?datasource=tranquility&page=3",
+                     EsiResponseCache.toKey("https://esi.evetech.net/v1/markets/structures/1/?datasource=tranquility"
+                                            + "&token=abc&page=3"));
+        assertEquals("https://esi.evetech.net/v2/universe/structures/1/",
+                     EsiResponseCache.toKey("https://esi.evetech.net/v2/universe/structures/1/?token=abc"));
+        assertEquals("https://esi.evetech.net/v2/universe/types/34",
+                     EsiResponseCache.toKey("https://esi.evetech.net/v2/universe/types/34"));
+    }
+
+    @Test
+    public void put_compressesBody() {
+        final byte[] body = "[{\"order_id\":1},{\"order_id\":2},{\"order_id\":3}]".getBytes(StandardCharsets.UTF_8);
+
+        sut.put("https://esi.evetech.net/v1/markets/1/?token=abc", "\"etag\"", Instant.now(), 3, body);
+
+        final ArgumentCaptor<EsiCacheEntry> captor = ArgumentCaptor.forClass(EsiCacheEntry.class);
+        verify(repository).save(captor.capture());
+        final EsiCacheEntry entry = captor.getValue();
+        assertEquals("https://esi.evetech.net/v1/markets/1/", entry.getKey());
+        assertEquals("\"etag\"", entry.getEtag());
+        assertEquals(3, entry.getPageCount());
+        assertEquals(body.length, entry.getSize());
+        assertNotNull(entry.getStoredAt());
+        assertArrayEquals(body, sut.getBody(entry));
+    }
+
+    @Test
+    public void refresh_restartsRetention() {
+        final EsiCacheEntry entry = new EsiCacheEntry("https://esi.evetech.net/v2/universe/types/34", "\"etag\"",
+                                                      Instant.now(), 0, 0, new byte[0], new Date(0L));
+
+        sut.refresh(entry);
+
+        verify(repository).save(entry);
+        assertTrue(entry.getStoredAt().after(new Date(0L)));
+    }
+
+    @Test
+    public void recordHit() {
+        sut.recordHit(100);
+        sut.recordHit(50);
+        sut.recordMiss();
+
+        assertEquals(150L, metricRegistry.counter(MetricRegistry.name(EsiResponseCache.class, "bytes-saved")).getCount());
+        assertEquals(2.0 / 3.0, (Double) metricRegistry.getGauges().get(MetricRegistry.name(EsiResponseCache.class, "hit-ratio")).getValue(), 0.001);
+    }
+}
@@ -0,0 +1,31 @@
+package com.thebuyback.eve.service;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HierarchyTableTest {
+
+    @Test
+    public void findsRowsAddedInAnyOrder() {
+        final HierarchyTable sut = new HierarchyTable.Builder()
+            .add(1031L, "Planetary Commodities", 43L)
+            .add(25L, "Frigate", 6L)
+            .add(465L, "Ice", 25L)
+            .build();
+
+        assertEquals(3, sut.size());
+        assertEquals("Frigate", sut.getName(25L));
+        assertEquals(Long.valueOf(25L), sut.getParent(465L));
+        assertEquals(Long.valueOf(43L), sut.getParent(1031L));
+    }
+
+    @Test
+    public void unknownIdsAreNull() {
+        final HierarchyTable sut = new HierarchyTable.Builder().add(25L, "Frigate", 6L).build();
+
+        assertNull(sut.getName(26L));
+        assertNull(sut.getParent(24L));
+        assertNull(HierarchyTable.EMPTY.getName(25L));
+    }
+}
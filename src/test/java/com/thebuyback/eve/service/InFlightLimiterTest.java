@@ -0,0 +1,55 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InFlightLimiterTest {
+
+    private final InFlightLimiter sut = new InFlightLimiter(2);
+
+    @Test
+    public void submit_queuesCallsAboveTheLimit() {
+        final List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        final List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(sut.submit(() -> {
+                final CompletableFuture<Integer> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }));
+        }
+
+        assertEquals(2, calls.size());
+        assertEquals(2, sut.getInFlight());
+        assertEquals(3, sut.getPending());
+
+        calls.get(0).complete(0);
+        assertEquals(Integer.valueOf(0), results.get(0).join());
+        assertEquals(3, calls.size());
+        assertEquals(2, sut.getInFlight());
+
+        calls.get(1).completeExceptionally(new IllegalStateException("test"));
+        assertTrue(results.get(1).isCompletedExceptionally());
+        calls.get(2).complete(2);
+        calls.get(3).complete(3);
+        calls.get(4).complete(4);
+
+        assertEquals(Integer.valueOf(4), results.get(4).join());
+        assertEquals(0, sut.getInFlight());
+        assertEquals(0, sut.getPending());
+    }
+
+    @Test
+    public void submit_releasesOnFailingSupplier() {
+        final CompletableFuture<Object> result = sut.submit(() -> {
+            throw new IllegalStateException("test");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, sut.getInFlight());
+    }
+}
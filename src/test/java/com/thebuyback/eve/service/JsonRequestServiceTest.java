@@ -2,6 +2,7 @@ package com.thebuyback.eve.service;
 
 import java.util.Optional;
 
+import com.codahale.metrics.MetricRegistry;
 import com.mashape.unirest.http.Headers;
 import com.mashape.unirest.http.HttpMethod;
 import com.mashape.unirest.http.HttpResponse;
@@ -11,6 +12,7 @@ import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequest;
 import com.mashape.unirest.request.body.MultipartBody;
+import com.thebuyback.eve.config.ApplicationProperties;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -25,7 +27,13 @@ import static org.mockito.Mockito.when;
 
 public class JsonRequestServiceTest {
 
-    private JsonRequestService sut = spy(new JsonRequestService());
+    private JsonRequestService sut = spy(new JsonRequestService(mock(EsiResponseCache.class),
+                                                                mock(AccessTokenCache.class),
+                                                                mock(EsiRateGovernor.class),
+                                                                mock(EsiEndpointRegistry.class),
+                                                                new EsiMetrics(new MetricRegistry()),
+                                                                new MetricRegistry(),
+                                                                new ApplicationProperties()));
 
     @Test
     public void getAccessToken() throws Exception {
@@ -0,0 +1,50 @@
+package com.thebuyback.eve.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void putAndGet() {
+        final LongObjectMap<String> sut = new LongObjectMap<>(0);
+        sut.put(0L, "zero");
+        sut.put(-1L, "minus one");
+        sut.put(34L, "Tritanium");
+        sut.put(34L, "Tritanium, again");
+
+        assertEquals(3, sut.size());
+        assertEquals("zero", sut.get(0L));
+        assertEquals("minus one", sut.get(-1L));
+        assertEquals("Tritanium, again", sut.get(34L));
+        assertNull(sut.get(35L));
+    }
+
+    @Test
+    public void growsBeyondTheExpectedSize() {
+        final LongObjectMap<Long> sut = new LongObjectMap<>(10);
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // type ids are mostly dense, with a few large outliers
+            final long key = i % 10 == 0 ? random.nextLong() : i;
+            sut.put(key, key * 2);
+            expected.put(key, key * 2);
+        }
+
+        assertEquals(expected.size(), sut.size());
+        expected.forEach((key, value) -> assertEquals(value, sut.get(key)));
+        final Map<Long, Long> iterated = new HashMap<>();
+        sut.forEach((value, key) -> iterated.put(key, value));
+        assertEquals(expected, iterated);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValues() {
+        new LongObjectMap<String>(0).put(1L, null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.thebuyback.eve.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.mashape.unirest.http.JsonNode;
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+import static com.thebuyback.eve.service.StockDataLoader.JITA;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the org.json based transformation of a region market page with the streaming {@link MarketOrderDecoder}.
+ *
+ * Run with {@code main} after {@code ./mvnw test-compile}, add {@code -prof gc} to the options for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MarketOrderDecoderBenchmark {
+
+    /**
+     * Share of orders on the page that are located in Jita, the rest is dropped by the filter.
+     */
+    @Param({"0.3", "1.0"})
+    public double jitaShare;
+
+    private byte[] page;
+
+    @Setup
+    public void createPage() {
+        // ESI returns 1000 orders per market page
+        page = createMarketPage(1000, jitaShare, new Random(42)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<MarketOrder> jsonArray() {
+        final JSONArray orderArray = new JsonNode(new String(page, StandardCharsets.UTF_8)).getArray();
+        final List<MarketOrder> orders = new ArrayList<>();
+        for (int i = 0; i < orderArray.length(); i++) {
+            final JSONObject jsonObject = orderArray.getJSONObject(i);
+            final MarketOrder order = new MarketOrder();
+            if (!jsonObject.has("location_id")) {
+                continue;
+            }
+            order.setLocationId(jsonObject.getLong("location_id"));
+            order.setTypeId(jsonObject.getLong("type_id"));
+            if (!Objects.equals(JITA, order.getLocationId())) {
+                continue;
+            }
+            order.setDuration(jsonObject.getInt("duration"));
+            order.setMinVolume(jsonObject.getLong("min_volume"));
+            order.setPrice(jsonObject.getDouble("price"));
+            order.setBuyOrder(jsonObject.getBoolean("is_buy_order"));
+            order.setVolumeTotal(jsonObject.getLong("volume_total"));
+            order.setRange(jsonObject.getString("range"));
+            order.setIssued(Instant.parse(jsonObject.getString("issued")));
+            order.setOrderId(jsonObject.getLong("order_id"));
+            order.setVolumeRemain(jsonObject.getLong("volume_remain"));
+            order.setTimestamp(Instant.now());
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    @Benchmark
+    public MarketSnapshot.Builder streaming() throws IOException {
+        final MarketSnapshot.Builder orders = MarketSnapshot.builder();
+        MarketOrderDecoder.decode(new ByteArrayInputStream(page), JITA, orders);
+        return orders;
+    }
+
+    static String createMarketPage(final int size, final double jitaShare, final Random random) {
+        final String[] ranges = {"station", "region", "solarsystem", "1", "5"};
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            final long locationId = random.nextDouble() < jitaShare ? JITA : 60008494L;
+            builder.append("{\"duration\":90")
+                   .append(",\"is_buy_order\":").append(random.nextBoolean())
+                   .append(",\"issued\":\"2018-05-").append(10 + random.nextInt(18)).append("T12:34:56Z\"")
+                   .append(",\"location_id\":").append(locationId)
+                   .append(",\"min_volume\":1")
+                   .append(",\"order_id\":").append(5_000_000_000L + i)
+                   .append(",\"price\":").append(random.nextInt(100_000_000) / 100.0)
+                   .append(",\"range\":\"").append(ranges[random.nextInt(ranges.length)]).append('"')
+                   .append(",\"system_id\":30000142")
+                   .append(",\"type_id\":").append(random.nextInt(40_000))
+                   .append(",\"volume_remain\":").append(random.nextInt(1000))
+                   .append(",\"volume_total\":1000}");
+        }
+        return builder.append(']').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MarketOrderDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.thebuyback.eve.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import com.thebuyback.eve.domain.MarketOrder;
+import com.thebuyback.eve.domain.MarketSnapshot;
+
+import static com.thebuyback.eve.service.StockDataLoader.JITA;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MarketOrderDecoderTest {
+
+    private static final String PAGE = "[{\"duration\":90,\"is_buy_order\":false,\"issued\":\"2018-05-14T12:34:56Z\","
+                                       + "\"location_id\":60003760,\"min_volume\":1,\"order_id\":5123,\"price\":12.5,"
+                                       + "\"range\":\"region\",\"system_id\":30000142,\"type_id\":34,"
+                                       + "\"volume_remain\":700,\"volume_total\":1000},"
+                                       + "{\"duration\":30,\"is_buy_order\":true,\"issued\":\"2018-05-14T12:34:56Z\","
+                                       + "\"location_id\":60008494,\"min_volume\":1,\"order_id\":5124,\"price\":11.0,"
+                                       + "\"range\":\"station\",\"system_id\":30002187,\"type_id\":34,"
+                                       + "\"volume_remain\":10,\"volume_total\":10},"
+                                       + "{\"duration\":30,\"is_buy_order\":true,\"order_id\":5125,\"price\":11.0}]";
+
+    @Test
+    public void decode() throws Exception {
+        final MarketSnapshot.Builder builder = MarketSnapshot.builder();
+
+        final int count = MarketOrderDecoder.decode(stream(PAGE), null, builder);
+
+        assertEquals(3, count);
+        final MarketSnapshot orders = builder.build(JITA, Instant.now(), false);
+        assertEquals(2, orders.size());
+        // sell orders come before buy orders of the same type
+        final MarketOrder order = orders.toMarketOrder(0);
+        assertEquals(5123L, order.getOrderId().longValue());
+        assertEquals(34L, order.getTypeId().longValue());
+        assertEquals(JITA, order.getLocationId().longValue());
+        assertEquals(1000L, order.getVolumeTotal().longValue());
+        assertEquals(700L, order.getVolumeRemain().longValue());
+        assertEquals(1L, order.getMinVolume().longValue());
+        assertEquals(12.5, order.getPrice(), 0.0);
+        assertFalse(order.isBuyOrder());
+        assertEquals(90, order.getDuration().intValue());
+        assertEquals(Instant.parse("2018-05-14T12:34:56Z"), order.getIssued());
+        assertEquals("region", order.getRange());
+        assertNotNull(order.getTimestamp());
+        assertTrue(orders.isBuyOrder(1));
+        assertEquals("station", orders.getRange(1));
+    }
+
+    @Test
+    public void decode_withLocationFilter() throws Exception {
+        final MarketSnapshot.Builder orders = MarketSnapshot.builder();
+
+        final int count = MarketOrderDecoder.decode(stream(PAGE), JITA, orders);
+
+        assertEquals(3, count);
+        assertEquals(1, orders.size());
+        assertEquals(5123L, orders.build(JITA, Instant.now(), false).getOrderId(0));
+    }
+
+    @Test
+    public void decode_emptyPage() throws Exception {
+        final MarketSnapshot.Builder orders = MarketSnapshot.builder();
+
+        assertEquals(0, MarketOrderDecoder.decode(stream("[]"), JITA, orders));
+        assertEquals(0, orders.size());
+    }
+
+    @Test
+    public void decode_matchesGeneratedPage() throws Exception {
+        final String page = MarketOrderDecoderBenchmark.createMarketPage(1000, 0.5, new Random(1));
+        final MarketSnapshot.Builder orders = MarketSnapshot.builder();
+
+        assertEquals(1000, MarketOrderDecoder.decode(stream(page), null, orders));
+        assertEquals(1000, orders.size());
+    }
+
+    private static InputStream stream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.thebuyback.eve.domain.EntityName;
+import com.thebuyback.eve.repository.EntityNameRepository;
+import com.thebuyback.eve.service.dto.esi.EsiName;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NameResolverTest {
+
+    private static final long INVALID_ID = 13L;
+
+    private final JsonRequestService requestService = mock(JsonRequestService.class);
+    private final EntityNameRepository repository = mock(EntityNameRepository.class);
+    private final NameResolver sut = new NameResolver(requestService, repository);
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    public NameResolverTest() {
+        when(requestService.isAvailable(EsiEndpoint.NAMES)).thenReturn(true);
+        when(requestService.getNames(anyListOf(Long.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Collection<Long> ids = (Collection<Long>) invocation.getArguments()[0];
+            batchSizes.add(ids.size());
+            if (ids.contains(INVALID_ID)) {
+                return Optional.empty();
+            }
+            return Optional.of(ids.stream().map(NameResolverTest::name).collect(Collectors.toList()));
+        });
+    }
+
+    private static EsiName name(final long id) {
+        final EsiName name = new EsiName();
+        name.setId(id);
+        name.setName("Name " + id);
+        name.setCategory("character");
+        return name;
+    }
+
+    @Test
+    public void resolveNames_batchesUnknownIds() {
+        when(repository.findAll(anyCollectionOf(Long.class)))
+            .thenReturn(Collections.singletonList(new EntityName(1L, "Stored", "character")));
+        final List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1002; id++) {
+            ids.add(id);
+        }
+
+        final Map<Long, String> result = sut.resolveNames(ids);
+
+        assertEquals(1002, result.size());
+        assertEquals("Stored", result.get(1L));
+        assertEquals("Name 1002", result.get(1002L));
+        assertEquals(Arrays.asList(1000, 1), batchSizes);
+        verify(repository, times(1)).save(anyCollectionOf(EntityName.class));
+    }
+
+    @Test
+    public void resolveNames_isolatesInvalidIds() {
+        when(repository.findAll(anyCollectionOf(Long.class))).thenReturn(Collections.emptyList());
+
+        final Map<Long, String> result = sut.resolveNames(Arrays.asList(10L, 11L, 12L, INVALID_ID));
+
+        assertEquals(3, result.size());
+        assertFalse(result.containsKey(INVALID_ID));
+        assertEquals("Name 12", result.get(12L));
+    }
+}
@@ -0,0 +1,90 @@
+package com.thebuyback.eve.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import com.thebuyback.eve.domain.MarketOrder;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OrderBookTest {
+
+    private static long nextOrderId = 1L;
+
+    private final OrderBook sut = OrderBook.of(1L, Arrays.asList(order(34L, false, 5.0, 100L),
+                                                                 order(34L, false, 4.0, 10L),
+                                                                 order(34L, false, 5.0, 50L),
+                                                                 order(34L, false, 7.5, 1L),
+                                                                 order(34L, true, 3.0, 20L),
+                                                                 order(34L, true, 3.5, 5L),
+                                                                 order(35L, true, 1.0, 5L)));
+
+    @Test
+    public void getBestAsk() {
+        assertEquals(4.0, sut.getBestAsk(34L).get(), 0.0);
+        assertFalse(sut.getBestAsk(35L).isPresent());
+        assertFalse(sut.getBestAsk(36L).isPresent());
+    }
+
+    @Test
+    public void getBestBid() {
+        assertEquals(3.5, sut.getBestBid(34L).get(), 0.0);
+        assertEquals(1.0, sut.getBestBid(35L).get(), 0.0);
+        assertFalse(sut.getBestBid(36L).isPresent());
+    }
+
+    @Test
+    public void getSellVolume() {
+        assertEquals(161L, sut.getSellVolume(34L));
+        assertEquals(0L, sut.getSellVolume(35L));
+    }
+
+    @Test
+    public void getSellDepth() {
+        assertEquals(0L, sut.getSellDepth(34L, 3.9));
+        assertEquals(10L, sut.getSellDepth(34L, 4.0));
+        assertEquals(160L, sut.getSellDepth(34L, 5.0));
+        assertEquals(160L, sut.getSellDepth(34L, 7.0));
+        assertEquals(161L, sut.getSellDepth(34L, 100.0));
+    }
+
+    @Test
+    public void getBuyDepth() {
+        assertEquals(0L, sut.getBuyDepth(34L, 3.6));
+        assertEquals(5L, sut.getBuyDepth(34L, 3.5));
+        assertEquals(25L, sut.getBuyDepth(34L, 0.1));
+    }
+
+    @Test
+    public void empty() {
+        final OrderBook book = OrderBook.of(1L, Collections.emptyList());
+        assertFalse(book.getBestAsk(34L).isPresent());
+        assertEquals(0L, book.getSellVolume(34L));
+    }
+
+    @Test
+    public void getChangedTypeIds() {
+        final OrderBook next = OrderBook.of(1L, Arrays.asList(order(34L, false, 4.0, 161L),
+                                                              order(34L, true, 3.9, 5L),
+                                                              order(35L, true, 1.0, 5L),
+                                                              order(36L, false, 2.0, 1L)));
+
+        // 34 kept price and volume, 35 has no sell orders, 36 is new
+        assertEquals(Collections.singleton(36L), next.getChangedTypeIds(sut));
+        assertEquals(Collections.singleton(36L), sut.getChangedTypeIds(next));
+        assertEquals(new HashSet<>(Arrays.asList(34L, 35L)), sut.getChangedTypeIds(OrderBook.empty(1L)));
+    }
+
+    private static MarketOrder order(final long typeId, final boolean isBuyOrder, final double price,
+                                     final long volumeRemain) {
+        final MarketOrder order = new MarketOrder();
+        order.setOrderId(nextOrderId++);
+        order.setTypeId(typeId);
+        order.setBuyOrder(isBuyOrder);
+        order.setPrice(price);
+        order.setVolumeRemain(volumeRemain);
+        return order;
+    }
+}
@@ -0,0 +1,66 @@
+package com.thebuyback.eve.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> sut = new SingleFlight<>();
+
+    @Test
+    public void executeAsync_sharesRunningCall() {
+        final CompletableFuture<String> response = new CompletableFuture<>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        final CompletableFuture<String> first = sut.executeAsync("a", () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        final CompletableFuture<String> second = sut.executeAsync("a", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        response.complete("body");
+
+        assertEquals("body", first.join());
+        assertEquals("body", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1L, sut.getCoalescedCount());
+
+        // completed calls are not reused
+        assertEquals("next", sut.executeAsync("a", () -> CompletableFuture.completedFuture("next")).join());
+    }
+
+    @Test
+    public void execute_waitsForRunningCall() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> sut.execute("a", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "body";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        final CompletableFuture<String> second = CompletableFuture.supplyAsync(
+            () -> sut.execute("a", () -> "duplicate"));
+        final String other = sut.execute("b", () -> "other");
+        while (sut.getCoalescedCount() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("body", first.get(5, TimeUnit.SECONDS));
+        assertEquals("body", second.get(5, TimeUnit.SECONDS));
+        assertEquals("other", other);
+    }
+}
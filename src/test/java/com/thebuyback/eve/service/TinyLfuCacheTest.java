@@ -0,0 +1,137 @@
+package com.thebuyback.eve.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TinyLfuCacheTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final TinyLfuCache<Long, String> sut = new TinyLfuCache<>("test", 100, metricRegistry);
+
+    @Test
+    public void computeIfAbsent_loadsOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("34", sut.computeIfAbsent(34L, key -> String.valueOf(loads.incrementAndGet() * 34)));
+        assertEquals("34", sut.computeIfAbsent(34L, key -> String.valueOf(loads.incrementAndGet() * 34)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, metricRegistry.meter(MetricRegistry.name(TinyLfuCache.class, "test", "hits")).getCount());
+        assertEquals(1, metricRegistry.meter(MetricRegistry.name(TinyLfuCache.class, "test", "misses")).getCount());
+    }
+
+    @Test
+    public void computeIfAbsent_slowLoadDoesNotBlockOtherKeys() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> slow = executor.submit(() -> sut.computeIfAbsent(1L, key -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "one";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // 17 and 1 share a bin of the backing map
+            assertEquals("seventeen", executor.submit(() -> sut.computeIfAbsent(17L, key -> "seventeen"))
+                                              .get(5, TimeUnit.SECONDS));
+            assertFalse(slow.isDone());
+
+            release.countDown();
+            assertEquals("one", slow.get(5, TimeUnit.SECONDS));
+            assertEquals("one", sut.get(1L));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void computeIfAbsent_doesNotCacheNull() {
+        assertNull(sut.computeIfAbsent(1L, key -> null));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void putAndInvalidate() {
+        sut.put(1L, "one");
+        sut.put(1L, "uno");
+        assertEquals("uno", sut.get(1L));
+
+        sut.invalidate(1L);
+
+        assertNull(sut.get(1L));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void staysBounded() {
+        for (long i = 0; i < 10_000; i++) {
+            sut.put(i, String.valueOf(i));
+        }
+
+        assertEquals(100, sut.size());
+        assertEquals(9_900, metricRegistry.meter(MetricRegistry.name(TinyLfuCache.class, "test", "evictions"))
+                                          .getCount());
+    }
+
+    @Test
+    public void frequentEntriesSurviveAScan() {
+        for (int round = 0; round < 5; round++) {
+            for (long i = 0; i < 50; i++) {
+                sut.computeIfAbsent(i, String::valueOf);
+            }
+        }
+        for (long i = 1_000; i < 11_000; i++) {
+            sut.computeIfAbsent(i, String::valueOf);
+        }
+
+        int retained = 0;
+        for (long i = 0; i < 50; i++) {
+            if (null != sut.get(i)) {
+                retained++;
+            }
+        }
+        assertTrue("only " + retained + " frequent entries were retained", retained >= 45);
+    }
+
+    @Test
+    public void concurrentAccess() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            final long offset = thread * 37L;
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < 20_000; i++) {
+                    final long key = (i * 7 + offset) % 500;
+                    assertEquals(String.valueOf(key), sut.computeIfAbsent(key, String::valueOf));
+                    if (i % 100 == 0) {
+                        sut.invalidate(key);
+                    }
+                }
+            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(sut.size() <= 100);
+    }
+}
@@ -0,0 +1,85 @@
+package com.thebuyback.eve.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import com.thebuyback.eve.service.dto.esi.EsiCategory;
+import com.thebuyback.eve.service.dto.esi.EsiGroup;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TypeHierarchyTest {
+
+    private final JsonRequestService requestService = mock(JsonRequestService.class);
+    private final DictionarySnapshot snapshot = mock(DictionarySnapshot.class);
+
+    public TypeHierarchyTest() {
+        when(snapshot.getCategories()).thenReturn(new HierarchyTable.Builder()
+            .add(6L, "Ship", 0L)
+            .add(7L, "Module", 0L)
+            .build());
+        when(snapshot.getGroups()).thenReturn(new HierarchyTable.Builder()
+            .add(25L, "Frigate", 6L)
+            .add(26L, "Cruiser", 6L)
+            .add(60L, "Damage Control", 7L)
+            .build());
+    }
+
+    @Test
+    public void loadHierarchy_keepsGroupsOfFailedCategory() {
+        final EsiCategory module = new EsiCategory();
+        module.setCategoryName("Module");
+        module.setGroups(Collections.singletonList(60L));
+        final EsiGroup damageControl = new EsiGroup();
+        damageControl.setName("Damage Controls");
+        damageControl.setCategoryId(7L);
+        when(requestService.getCategoryIdsAsync()).thenReturn(
+            CompletableFuture.completedFuture(Optional.of(Arrays.asList(6L, 7L))));
+        when(requestService.getCategoryInfoAsync(6L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(requestService.getCategoryInfoAsync(7L)).thenReturn(CompletableFuture.completedFuture(Optional.of(module)));
+        when(requestService.getGroupInfoAsync(60L)).thenReturn(
+            CompletableFuture.completedFuture(Optional.of(damageControl)));
+        final TypeHierarchy sut = new TypeHierarchy(requestService, snapshot);
+
+        sut.loadHierarchy();
+
+        assertEquals(3, sut.getGroups().size());
+        assertEquals("Frigate", sut.getGroupName(25L));
+        assertEquals(6L, sut.getCategoryId(26L));
+        assertEquals("Damage Controls", sut.getGroupName(60L));
+        assertEquals("Ship", sut.getCategoryName(6L));
+        verify(requestService, never()).getGroupInfo(anyLong());
+        verify(requestService, never()).getCategoryInfo(anyLong());
+    }
+
+    @Test
+    public void loadHierarchy_publishesTablesWhenRequestsComplete() {
+        final EsiCategory ship = new EsiCategory();
+        ship.setCategoryName("Ship");
+        ship.setGroups(Collections.singletonList(25L));
+        final EsiGroup frigate = new EsiGroup();
+        frigate.setName("Frigates");
+        frigate.setCategoryId(6L);
+        final CompletableFuture<Optional<EsiGroup>> frigateRequest = new CompletableFuture<>();
+        when(requestService.getCategoryIdsAsync()).thenReturn(
+            CompletableFuture.completedFuture(Optional.of(Collections.singletonList(6L))));
+        when(requestService.getCategoryInfoAsync(6L)).thenReturn(CompletableFuture.completedFuture(Optional.of(ship)));
+        when(requestService.getGroupInfoAsync(25L)).thenReturn(frigateRequest);
+        final TypeHierarchy sut = new TypeHierarchy(requestService, snapshot);
+
+        sut.loadHierarchy();
+
+        assertEquals("Frigate", sut.getGroupName(25L));
+        frigateRequest.complete(Optional.of(frigate));
+        assertEquals("Frigates", sut.getGroupName(25L));
+        assertEquals(1, sut.getGroups().size());
+    }
+}
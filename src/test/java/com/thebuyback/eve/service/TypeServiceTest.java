@@ -0,0 +1,91 @@
+package com.thebuyback.eve.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import com.thebuyback.eve.domain.Type;
+import com.thebuyback.eve.repository.TypeRepository;
+import com.thebuyback.eve.service.dto.esi.EsiSearchResult;
+import com.thebuyback.eve.service.dto.esi.EsiType;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class TypeServiceTest {
+
+    private final TypeRepository repository = mock(TypeRepository.class);
+    private final JsonRequestService requestService = mock(JsonRequestService.class);
+    private final TypeService sut = new TypeService(repository, requestService, mock(TypeHierarchy.class),
+                                                    mock(DictionarySnapshot.class));
+
+    public TypeServiceTest() {
+        when(repository.findAll()).thenReturn(Arrays.asList(
+            new Type(587L, "Rifter", 25L, "Frigate", 6L, "Ship", 27289.0, 2500.0),
+            new Type(2048L, "Damage Control II", 60L, "Damage Control", 7L, "Module", 5.0, null)));
+        sut.preload();
+    }
+
+    @Test
+    public void resolveNamesIgnoresCaseAndWhitespace() {
+        final Map<String, Long> typeIds = sut.resolveNames(Arrays.asList("rifter", "Damage Control II "));
+
+        assertEquals(587L, (long) typeIds.get("rifter"));
+        assertEquals(2048L, (long) typeIds.get("Damage Control II "));
+        verify(repository).findAll();
+        verifyNoMoreInteractions(repository);
+        verify(requestService, never()).searchType(anyString());
+    }
+
+    @Test
+    public void unknownNamesAreSearchedOnce() {
+        final EsiSearchResult searchResult = new EsiSearchResult();
+        searchResult.setInventoryType(Collections.singletonList(593L));
+        when(requestService.searchType("TRISTAN")).thenReturn(Optional.of(searchResult));
+        when(repository.findByTypeId(593L)).thenReturn(
+            Optional.of(new Type(593L, "Tristan", 25L, "Frigate", 6L, "Ship", 29760.0, 2500.0)));
+
+        assertEquals(593L, sut.getTypeId("TRISTAN"));
+        assertEquals(593L, sut.getTypeId("tristan"));
+        verify(requestService).searchType("TRISTAN");
+    }
+
+    @Test
+    public void getTypesQueriesAndRequestsOnlyMissingTypes() {
+        when(repository.findByTypeIdIn(new HashSet<>(Arrays.asList(593L, 11379L, 1L)))).thenReturn(
+            Stream.of(new Type(593L, "Tristan", 25L, "Frigate", 6L, "Ship", 29760.0, 2500.0)));
+        final EsiType esiType = new EsiType();
+        esiType.setName("Taranis");
+        esiType.setGroupId(831L);
+        esiType.setVolume(27289.0);
+        when(requestService.getTypeInfoAsync(11379L)).thenReturn(CompletableFuture.completedFuture(Optional.of(esiType)));
+        when(requestService.getTypeInfoAsync(1L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        final Map<Long, Type> types = sut.getTypes(new HashSet<>(Arrays.asList(587L, 593L, 11379L, 1L)));
+
+        assertEquals("Rifter", types.get(587L).getTypeName());
+        assertEquals("Tristan", types.get(593L).getTypeName());
+        assertEquals("Taranis", types.get(11379L).getTypeName());
+        assertFalse(types.containsKey(1L));
+        verify(repository, times(1)).insert(anyListOf(Type.class));
+        // all resolved types are known from now on
+        assertEquals(11379L, sut.getTypeId("taranis"));
+        assertEquals("Tristan", sut.getNameByTypeId(593L));
+        verify(repository, never()).findByTypeId(anyLong());
+        verify(requestService, never()).getTypeInfo(anyLong());
+    }
+}
@@ -0,0 +1,113 @@
+package com.thebuyback.eve.stub;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Stores recorded responses in a directory, two files per request: {@code <hash>.json} with the request key, the
+ * status and the headers, and {@code <hash>.body} with the raw body. Access tokens are not part of the key and
+ * request headers are not stored, so the fixtures can be checked in.
+ */
+public class FixtureStore {
+
+    private static final Pattern TOKEN_PARAMETER = Pattern.compile("([?&])token=[^&]*&?");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path directory;
+
+    public FixtureStore(final Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * @return the method, the path with the query but without the access token, and for requests with a body a hash
+     * of the body
+     */
+    static String toKey(final String method, final String pathAndQuery, final byte[] body) {
+        String key = TOKEN_PARAMETER.matcher(pathAndQuery).replaceAll("$1");
+        if (key.endsWith("?") || key.endsWith("&")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        key = method + ' ' + key;
+        return body.length == 0 ? key : key + ' ' + sha1(body);
+    }
+
+    Optional<Fixture> load(final String key) throws IOException {
+        final String name = sha1(key.getBytes(StandardCharsets.UTF_8));
+        final Path meta = directory.resolve(name + ".json");
+        if (!Files.exists(meta)) {
+            return Optional.empty();
+        }
+        final JsonNode node = mapper.readTree(meta.toFile());
+        final Map<String, String> headers = new LinkedHashMap<>();
+        final Iterator<Entry<String, JsonNode>> fields = node.get("headers").fields();
+        while (fields.hasNext()) {
+            final Entry<String, JsonNode> header = fields.next();
+            headers.put(header.getKey(), header.getValue().asText());
+        }
+        return Optional.of(new Fixture(node.get("status").asInt(), headers,
+                                       Files.readAllBytes(directory.resolve(name + ".body"))));
+    }
+
+    void save(final String key, final Fixture fixture) throws IOException {
+        final String name = sha1(key.getBytes(StandardCharsets.UTF_8));
+        final ObjectNode node = mapper.createObjectNode();
+        node.put("key", key);
+        node.put("status", fixture.getStatus());
+        final ObjectNode headers = node.putObject("headers");
+        fixture.getHeaders().forEach(headers::put);
+        Files.write(directory.resolve(name + ".body"), fixture.getBody());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(name + ".json").toFile(), node);
+    }
+
+    private static String sha1(final byte[] bytes) {
+        try {
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Fixture {
+
+        private final int status;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        Fixture(final int status, final Map<String, String> headers, final byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.thebuyback.eve.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thebuyback.eve.stub.FixtureStore.Fixture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local stand-in for ESI and evepraisal, so that the parsers and loaders can run without the live services.
+ *
+ * In {@link Mode#RECORD} every request is forwarded to the real service and the response is stored as a fixture. In
+ * {@link Mode#REPLAY} the fixtures are served again, with Date and Expires moved to the time of the request and 304
+ * for a matching If-None-Match. The services are mounted under {@code /esi}, {@code /evepraisal} and, for replays
+ * only, {@code /login} which hands out a fixed access token.
+ *
+ * To replay a cycle, start {@code main} with {@code replay <fixture dir> [port]} and run the application with
+ * {@code --application.esi.base-url=http://localhost:8099/esi},
+ * {@code --application.esi.login-url=http://localhost:8099/login} and
+ * {@code --application.evepraisal.base-url=http://localhost:8099/evepraisal}. Record with {@code record} and the
+ * same base urls, but leave the login url alone, as the real services need real tokens.
+ */
+public class StubServer {
+
+    public enum Mode {
+        RECORD, REPLAY
+    }
+
+    static final String ACCESS_TOKEN = "stub-access-token";
+
+    private static final int DEFAULT_PORT = 8099;
+    // hop-by-hop headers and those that HttpURLConnection already applied to the body
+    private static final List<String> SKIPPED_HEADERS = Arrays.asList("connection", "content-encoding",
+                                                                      "content-length", "keep-alive", "set-cookie",
+                                                                      "transfer-encoding");
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Mode mode;
+    private final FixtureStore store;
+    private final Map<String, String> upstreams;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+
+    /**
+     * @param upstreams the base url of each service by the path it is mounted under, e.g. esi
+     */
+    public StubServer(final Mode mode, final FixtureStore store, final Map<String, String> upstreams,
+                      final int port) throws IOException {
+        this.mode = mode;
+        this.store = store;
+        this.upstreams = upstreams;
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        upstreams.keySet().forEach(service -> server.createContext("/" + service + "/", this::handle));
+        if (mode == Mode.REPLAY) {
+            server.createContext("/login/", this::login);
+        }
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        log.info("Stub server is {} on port {}.", mode, getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("Stub server served {} requests, {} without a fixture.", served.get(), missing.get());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getMissingCount() {
+        return missing.get();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final byte[] requestBody = readAll(exchange.getRequestBody());
+            final String pathAndQuery = exchange.getRequestURI().toString();
+            final String key = FixtureStore.toKey(exchange.getRequestMethod(), pathAndQuery, requestBody);
+            final Optional<Fixture> fixture = mode == Mode.RECORD
+                                              ? Optional.of(record(exchange, pathAndQuery, requestBody, key))
+                                              : store.load(key);
+            served.incrementAndGet();
+            if (fixture.isPresent()) {
+                respond(exchange, fixture.get());
+            } else {
+                missing.incrementAndGet();
+                log.warn("No fixture for {}.", key);
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to handle {}.", exchange.getRequestURI(), e);
+            exchange.sendResponseHeaders(502, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Fixture record(final HttpExchange exchange, final String pathAndQuery, final byte[] requestBody,
+                           final String key) throws IOException {
+        final String service = pathAndQuery.substring(1, pathAndQuery.indexOf('/', 1));
+        final URL url = new URL(upstreams.get(service) + pathAndQuery.substring(service.length() + 1));
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(exchange.getRequestMethod());
+        for (final Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            final String name = header.getKey().toLowerCase();
+            // the fixture always needs the full body, 304s are answered from the fixture
+            if (!"host".equals(name) && !"accept-encoding".equals(name) && !"if-none-match".equals(name)
+                && !SKIPPED_HEADERS.contains(name)) {
+                header.getValue().forEach(value -> connection.addRequestProperty(header.getKey(), value));
+            }
+        }
+        if (requestBody.length > 0) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(requestBody);
+            }
+        }
+        final int status = connection.getResponseCode();
+        final Map<String, String> headers = new LinkedHashMap<>();
+        connection.getHeaderFields().forEach((name, values) -> {
+            if (null != name && !SKIPPED_HEADERS.contains(name.toLowerCase()) && !values.isEmpty()) {
+                headers.put(name, values.get(0));
+            }
+        });
+        final InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        final Fixture fixture = new Fixture(status, headers, null == body ? new byte[0] : readAll(body));
+        store.save(key, fixture);
+        log.debug("Recorded {} with status {}.", key, status);
+        return fixture;
+    }
+
+    private void respond(final HttpExchange exchange, final Fixture fixture) throws IOException {
+        final Map<String, String> headers = mode == Mode.REPLAY ? shiftDates(fixture.getHeaders())
+                                                                : fixture.getHeaders();
+        headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        final String etag = getHeader(headers, "ETag");
+        final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (fixture.getStatus() == 200 && null != etag && etag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(fixture.getStatus(), fixture.getBody().length == 0 ? -1
+                                                                                        : fixture.getBody().length);
+        if (fixture.getBody().length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(fixture.getBody());
+            }
+        }
+    }
+
+    /**
+     * Recorded responses expired long ago. Moving them to now keeps the cache and the schedulers running at the
+     * recorded pace.
+     */
+    private static Map<String, String> shiftDates(final Map<String, String> headers) {
+        final String date = getHeader(headers, "Date");
+        final String expires = getHeader(headers, "Expires");
+        if (null == date || null == expires) {
+            return headers;
+        }
+        try {
+            final DateTimeFormatter format = DateTimeFormatter.RFC_1123_DATE_TIME;
+            final Duration maxAge = Duration.between(ZonedDateTime.parse(date, format),
+                                                     ZonedDateTime.parse(expires, format));
+            final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            final Map<String, String> result = new LinkedHashMap<>(headers);
+            result.entrySet().removeIf(header -> "date".equalsIgnoreCase(header.getKey())
+                                                 || "expires".equalsIgnoreCase(header.getKey()));
+            result.put("Date", format.format(now));
+            result.put("Expires", format.format(now.plus(maxAge)));
+            return result;
+        } catch (DateTimeParseException e) {
+            return headers;
+        }
+    }
+
+    private void login(final HttpExchange exchange) throws IOException {
+        try {
+            readAll(exchange.getRequestBody());
+            final byte[] body = String.format("{\"access_token\":\"%s\",\"token_type\":\"Bearer\",\"expires_in\":1200}",
+                                              ACCESS_TOKEN).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String getHeader(final Map<String, String> headers, final String name) {
+        return headers.entrySet().stream().filter(header -> name.equalsIgnoreCase(header.getKey()))
+                      .map(Entry::getValue).findFirst().orElse(null);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StubServer record|replay <fixture dir> [port]");
+            return;
+        }
+        final Map<String, String> upstreams = new HashMap<>();
+        upstreams.put("esi", "https://esi.evetech.net");
+        upstreams.put("evepraisal", "https://evepraisal.com");
+        final StubServer server = new StubServer(Mode.valueOf(args[0].toUpperCase()),
+                                                 new FixtureStore(Paths.get(args[1])), upstreams,
+                                                 args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+    }
+}
@@ -0,0 +1,108 @@
+package com.thebuyback.eve.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import com.thebuyback.eve.stub.StubServer.Mode;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StubServerTest {
+
+    private static final String BODY = "[{\"type_id\":34,\"quantity\":100}]";
+
+    @Test
+    public void recordAndReplay() throws Exception {
+        final Path fixtures = Files.createTempDirectory("fixtures");
+        final AtomicInteger upstreamRequests = new AtomicInteger();
+        final HttpServer upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.createContext("/", exchange -> {
+            upstreamRequests.incrementAndGet();
+            final byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", "\"abc\"");
+            // the server sets the Date header itself
+            exchange.getResponseHeaders().set("Expires", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(5)));
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.start();
+        final String path = "/esi/v1/corporations/1/contracts/2/items/?token=";
+
+        final StubServer recorder = new StubServer(Mode.RECORD, new FixtureStore(fixtures), Collections.singletonMap(
+            "esi", "http://localhost:" + upstream.getAddress().getPort()), 0);
+        recorder.start();
+        try {
+            assertEquals(BODY, get(recorder, path + "secret", null).body);
+        } finally {
+            recorder.stop();
+            upstream.stop(0);
+        }
+        assertEquals(1, upstreamRequests.get());
+        assertEquals(2, Files.list(fixtures).count());
+
+        final StubServer replay = new StubServer(Mode.REPLAY, new FixtureStore(fixtures), Collections.singletonMap(
+            "esi", "http://localhost:1"), 0);
+        replay.start();
+        try {
+            // the token is not part of the fixture
+            final Response response = get(replay, path + "another", null);
+            assertEquals(200, response.status);
+            assertEquals(BODY, response.body);
+            assertTrue(ZonedDateTime.parse(response.expires, DateTimeFormatter.RFC_1123_DATE_TIME)
+                                    .isAfter(ZonedDateTime.now()));
+
+            assertEquals(304, get(replay, path + "another", "\"abc\"").status);
+            assertEquals(404, get(replay, "/esi/v1/unknown/", null).status);
+            assertEquals(1, replay.getMissingCount());
+        } finally {
+            replay.stop();
+        }
+    }
+
+    private static Response get(final StubServer server, final String path, final String etag) throws IOException {
+        final HttpURLConnection connection =
+            (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        if (null != etag) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        final Response response = new Response();
+        response.status = connection.getResponseCode();
+        response.expires = connection.getHeaderField("Expires");
+        if (response.status == 200) {
+            try (InputStream in = connection.getInputStream()) {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                }
+                response.body = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+        return response;
+    }
+
+    private static class Response {
+        private int status;
+        private String body;
+        private String expires;
+    }
+}